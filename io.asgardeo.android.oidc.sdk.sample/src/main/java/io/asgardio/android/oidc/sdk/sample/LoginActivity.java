@@ -24,16 +24,21 @@ import android.os.Bundle;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import io.asgardeo.android.oidc.sdk.sample.OIDCConfiguration;
 import io.asgardeo.android.oidc.sdk.sso.DefaultLoginService;
 import io.asgardeo.android.oidc.sdk.sso.LoginService;
 
 public class LoginActivity extends AppCompatActivity {
 
+    private LoginService mLoginService;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
 
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        mLoginService = new DefaultLoginService(this, new OIDCConfiguration());
+        mLoginService.prepare();
         findViewById(R.id.login).setOnClickListener(v -> doAuthorization());
     }
 
@@ -44,7 +49,6 @@ public class LoginActivity extends AppCompatActivity {
      */
     private void doAuthorization() {
 
-        LoginService mLoginService = new DefaultLoginService(this);
         Intent completionIntent = new Intent(this, UserInfoActivity.class);
         Intent cancelIntent = new Intent(this, LoginActivity.class);
         cancelIntent.putExtra("failed", true);
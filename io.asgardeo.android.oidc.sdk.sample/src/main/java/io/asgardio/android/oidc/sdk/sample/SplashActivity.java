@@ -24,6 +24,9 @@ import android.os.Handler;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import io.asgardeo.android.oidc.sdk.sample.OIDCConfiguration;
+import io.asgardeo.android.oidc.sdk.sso.DefaultLoginService;
+
 public class SplashActivity extends AppCompatActivity {
 
     // Splash screen timer
@@ -34,6 +37,10 @@ public class SplashActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
+        // Resolve the discovery response and warm up the browser while the splash screen is shown.
+        new DefaultLoginService(getApplicationContext(),
+                new OIDCConfiguration()).prepare();
+
         new Handler().postDelayed(new Runnable() {
 
             /*
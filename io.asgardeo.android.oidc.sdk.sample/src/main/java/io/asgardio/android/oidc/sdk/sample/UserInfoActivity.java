@@ -35,18 +35,16 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
-import org.json.JSONException;
-
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
 import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
 import io.asgardeo.android.oidc.sdk.model.UserInfoResponse;
+import io.asgardeo.android.oidc.sdk.sample.OIDCConfiguration;
 import io.asgardeo.android.oidc.sdk.sso.DefaultLoginService;
 import io.asgardeo.android.oidc.sdk.sso.LoginService;
 
@@ -71,9 +69,8 @@ public class UserInfoActivity extends AppCompatActivity {
 
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_user_info);
-        mLoginService = new DefaultLoginService(this);
-        mAuthenticationContext = (AuthenticationContext) getIntent()
-                .getSerializableExtra(AUTHENTICATION_CONTEXT);
+        mLoginService = new DefaultLoginService(this, new OIDCConfiguration());
+        mAuthenticationContext = getIntent().getParcelableExtra(AUTHENTICATION_CONTEXT);
 
         Toolbar myToolbar = (Toolbar) findViewById(R.id.my_toolbar);
         setSupportActionBar(myToolbar);
@@ -252,23 +249,9 @@ public class UserInfoActivity extends AppCompatActivity {
 
         UserInfoResponse userInfoResponse = mAuthenticationContext.getUserInfoResponse();
         if (userInfoResponse != null) {
-            Iterator<String> keys = null;
-            try {
-                keys = userInfoResponse.getUserInfoProperties().keys();
-            } catch (JSONException e) {
-                Log.e(LOG_TAG, "Error while reading user properties", e);
-            }
-            try {
-                while (keys != null && keys.hasNext()) {
-                    String claimName = keys.next();
-                    String claimValue = (String) userInfoResponse.getUserInfoProperties()
-                            .get(claimName);
-                    Log.d(LOG_TAG, claimName + " : " + claimValue);
-                }
-            } catch (JSONException exception) {
-                Log.e(LOG_TAG, "Error while getting user claims", exception);
+            for (Map.Entry<String, Object> claim : userInfoResponse.getClaims().entrySet()) {
+                Log.d(LOG_TAG, claim.getKey() + " : " + claim.getValue());
             }
-
         }
     }
 
@@ -23,6 +23,7 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Parcelable;
 import android.util.Log;
 import androidx.annotation.Nullable;
 import net.openid.appauth.AuthorizationException;
@@ -31,15 +32,27 @@ import net.openid.appauth.AuthorizationService;
 import net.openid.appauth.TokenResponse;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
 import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
+import io.asgardeo.android.oidc.sdk.context.AuthorizationFlow;
+import io.asgardeo.android.oidc.sdk.context.AuthorizationFlowRegistry;
+import io.asgardeo.android.oidc.sdk.context.SessionStore;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.handler.IDTokenValidationHandler;
+import io.asgardeo.android.oidc.sdk.handler.JWKSCache;
+import io.asgardeo.android.oidc.sdk.handler.SessionHandler;
 import io.asgardeo.android.oidc.sdk.handler.UserInfoRequestHandler;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+import io.asgardeo.android.oidc.sdk.model.IDTokenClaims;
 import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
 import io.asgardeo.android.oidc.sdk.model.User;
+import io.asgardeo.android.oidc.sdk.sso.AuthorizationServiceHolder;
 
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * This activity handles the token exchange flow.
@@ -48,48 +61,123 @@ public class TokenManagementActivity extends Activity {
 
     static final String KEY_COMPLETE_INTENT = "completeIntent";
     static final String KEY_CANCEL_INTENT = "cancelIntent";
+    static final String KEY_FLOW_STATE = "flowState";
     private static final String LOG_TAG = "TokenManagementActivity";
     private AuthorizationService mAuthorizationService;
     private PendingIntent mCompleteIntent;
     private PendingIntent mCancelIntent;
-    private static OAuth2TokenResponse sResponse;
-    private static AuthenticationContext mAuthenticationContext;
-    private static Boolean sCallUserInfo;
+    private String mFlowState;
+    private AuthorizationFlow mFlow;
+    private OAuth2TokenResponse mResponse;
+    private AuthenticationContext mAuthenticationContext;
+    private boolean mDestroyed;
 
     public static PendingIntent createStartIntent(Context context, PendingIntent completeIntent,
             PendingIntent cancelIntent, OAuth2TokenResponse response,
             AuthenticationContext authenticationContext, Boolean callUserInfo) {
 
+        // Without the state of the authorization request, the flow is kept under a random key.
+        return createStartIntent(context, completeIntent, cancelIntent,
+                UUID.randomUUID().toString(),
+                new AuthorizationFlow(authenticationContext, response,
+                        Boolean.TRUE.equals(callUserInfo)));
+    }
+
+    /**
+     * Creates the intent which starts the token exchange of an authorization flow. The flow is
+     * registered in the {@link AuthorizationFlowRegistry} under the OAuth state of its
+     * authorization request, so that several flows can be in progress at the same time.
+     *
+     * @param context        Context.
+     * @param completeIntent Success intent.
+     * @param cancelIntent   Failure intent.
+     * @param state          OAuth state of the authorization request.
+     * @param flow           AuthorizationFlow.
+     * @return PendingIntent.
+     */
+    public static PendingIntent createStartIntent(Context context, PendingIntent completeIntent,
+            PendingIntent cancelIntent, String state, AuthorizationFlow flow) {
+
+        AuthorizationFlowRegistry.getInstance(context).register(state, flow);
         Intent tokenExchangeIntent = new Intent(context, TokenManagementActivity.class);
         tokenExchangeIntent.putExtra(KEY_COMPLETE_INTENT, completeIntent);
         tokenExchangeIntent.putExtra(KEY_CANCEL_INTENT, cancelIntent);
-        sResponse = response;
-        mAuthenticationContext = authenticationContext;
-        sCallUserInfo = callUserInfo;
-        return PendingIntent
-                .getActivity(context, 0, tokenExchangeIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+        tokenExchangeIntent.putExtra(KEY_FLOW_STATE, state);
+        // A request code per flow keeps the PendingIntents of concurrent flows apart.
+        return PendingIntent.getActivity(context, state.hashCode(), tokenExchangeIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT);
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
 
         super.onCreate(savedInstanceState);
-        mAuthorizationService = new AuthorizationService(this);
         if (savedInstanceState == null) {
             extractState(getIntent().getExtras());
         } else {
             extractState(savedInstanceState);
         }
+        if (mFlowState == null) {
+            handleFlow(null);
+            return;
+        }
+        // A flow of a previous process is read from the disk off the main thread.
+        AuthorizationFlowRegistry.getInstance(this).get(mFlowState)
+                .addListener((flow, exception) -> handleFlow(flow));
+    }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+
+        super.onSaveInstanceState(outState);
+        outState.putParcelable(KEY_COMPLETE_INTENT, mCompleteIntent);
+        outState.putParcelable(KEY_CANCEL_INTENT, mCancelIntent);
+        outState.putString(KEY_FLOW_STATE, mFlowState);
     }
 
     @Override
-    protected void onStart() {
+    protected void onDestroy() {
 
-        super.onStart();
+        super.onDestroy();
+        mDestroyed = true;
+        if (mAuthorizationService != null) {
+            AuthorizationServiceHolder.release(mAuthorizationService);
+        }
+    }
+
+    /**
+     * Continues the authorization flow once it is looked up in the registry.
+     *
+     * @param flow AuthorizationFlow, or null if it is expired or unknown.
+     */
+    private void handleFlow(@Nullable AuthorizationFlow flow) {
+
+        if (mDestroyed) {
+            return;
+        }
+        if (flow == null || flow.isCancelled()) {
+            if (flow == null) {
+                Log.w(LOG_TAG, "Authorization flow is expired or unknown");
+            } else {
+                Log.d(LOG_TAG, "Authorization flow is cancelled by the application");
+                AuthorizationFlowRegistry.getInstance(this).remove(mFlowState);
+            }
+            if (mCancelIntent != null) {
+                sendPendingIntent(mCancelIntent);
+            } else {
+                finish();
+            }
+            return;
+        }
+        mFlow = flow;
+        mResponse = flow.getTokenResponse();
+        mAuthenticationContext = flow.getAuthenticationContext();
+        // The token exchange uses the timeouts of the login service which started the flow.
+        mAuthorizationService = AuthorizationServiceHolder.acquire(this, flow.getRequestOptions());
         AuthorizationException ex = AuthorizationException.fromIntent(getIntent());
         if (ex != null) {
             Log.w(LOG_TAG, "Authorization flow failed: " + ex);
+            failAuthorization(new ServerException("Authorization flow failed", ex));
             runOnUiThread(new Runnable() {
                 @Override
                 public void run() {
@@ -127,16 +215,17 @@ public class TokenManagementActivity extends Activity {
 
         if (exception != null) {
             Log.e(LOG_TAG, "Token Exchange failed", exception);
+            failAuthorization(new ServerException("Token Exchange failed", exception));
+            sendPendingIntent(mCancelIntent);
         } else {
             if (tokenResponse != null) {
                 if (mCompleteIntent != null) {
                     Log.d(LOG_TAG, "Authorization complete. Invoking completion intent");
                     setOAuth2Response(tokenResponse);
-                    setUser();
-                    handleUserInfoRequest();
-                    mAuthorizationService.dispose();
+                    validateIdToken();
                 }
             } else {
+                failAuthorization(new ServerException("Token response is empty"));
                 sendPendingIntent(mCancelIntent);
             }
         }
@@ -150,12 +239,40 @@ public class TokenManagementActivity extends Activity {
      */
     private void setOAuth2Response(TokenResponse tokenResponse) {
 
-        sResponse.setAccessToken(tokenResponse.accessToken);
-        sResponse.setIdToken(tokenResponse.idToken);
-        sResponse.setAccessTokenExpirationTime(tokenResponse.accessTokenExpirationTime);
-        sResponse.setRefreshToken(tokenResponse.refreshToken);
-        sResponse.setTokenType(tokenResponse.tokenType);
-        mAuthenticationContext.setOAuth2TokenResponse(sResponse);
+        mResponse.setAccessToken(tokenResponse.accessToken);
+        mResponse.setIdToken(tokenResponse.idToken);
+        mResponse.setAccessTokenExpirationTime(tokenResponse.accessTokenExpirationTime);
+        mResponse.setRefreshToken(tokenResponse.refreshToken);
+        mResponse.setTokenType(tokenResponse.tokenType);
+        mAuthenticationContext.setOAuth2TokenResponse(mResponse);
+    }
+
+    /**
+     * Validates the signature of the ID token before the user is set. The authentication fails if
+     * the ID token is not valid.
+     */
+    private void validateIdToken() {
+
+        OIDCDiscoveryResponse discoveryResponse = mAuthenticationContext.getOIDCDiscoveryResponse();
+        String idToken = mResponse.getIdToken();
+        if (idToken == null || discoveryResponse == null
+                || discoveryResponse.getJwksUri() == null) {
+            Log.w(LOG_TAG, "JWKS endpoint is not available. ID token signature is not validated");
+            setUser();
+            handleUserInfoRequest();
+            return;
+        }
+        new IDTokenValidationHandler(idToken, discoveryResponse.getJwksUri().toString(),
+                discoveryResponse.getIssuer(), JWKSCache.getInstance(this), exception -> {
+                    if (exception != null) {
+                        Log.e(LOG_TAG, "ID token validation failed", exception);
+                        failAuthorization(exception);
+                        sendPendingIntent(mCancelIntent);
+                    } else {
+                        setUser();
+                        handleUserInfoRequest();
+                    }
+                }).setRequestOptions(mFlow.getRequestOptions()).execute();
     }
 
     /**
@@ -165,17 +282,16 @@ public class TokenManagementActivity extends Activity {
 
         User user = new User();
         try {
-            user.setUserName(mAuthenticationContext.getOAuth2TokenResponse().getIdTokenResponse()
-                    .getSubject());
+            IDTokenClaims idTokenClaims = mAuthenticationContext.getOAuth2TokenResponse()
+                    .getIdTokenResponse().getIDTokenClaims();
+            user.setUserName(idTokenClaims.getSubject());
             ArrayList<String> serverClaims = new ArrayList<>(
                     Arrays.asList("iss", "aud", "jti", "exp", "iat", "azp", "alg", "nonce", "acr",
                             "auth_time", "max_age", "sid", "amr", "azp", "c_hash", "nbf",
                             "at_hash"));
 
-            Map<String, Object> idTokenClaims = mAuthenticationContext.getOAuth2TokenResponse()
-                    .getIdTokenResponse().getClaims();
             Map<String, Object> userClaims = new HashMap<>();
-            for (Map.Entry<String, Object> claimEntry : idTokenClaims.entrySet()) {
+            for (Map.Entry<String, Object> claimEntry : idTokenClaims.getClaims().entrySet()) {
                 if (!serverClaims.contains(claimEntry.getKey())) {
                     userClaims.put(claimEntry.getKey(), claimEntry.getValue());
                 }
@@ -193,24 +309,60 @@ public class TokenManagementActivity extends Activity {
      */
     private void handleUserInfoRequest() {
 
-        if (sCallUserInfo) {
+        UserInfoRequestHandler.UserInfoUpdateListener listener = mFlow.getUserInfoListener();
+        if (mFlow.isCallUserInfo() && listener != null) {
+            // The User derived from the ID token is delivered right away.
+            sendSuccessIntent();
+            updateUserInfo(mAuthenticationContext, mFlow.getRequestOptions(),
+                    mFlow.getSessionStore(), listener);
+        } else if (mFlow.isCallUserInfo()) {
             new UserInfoRequestHandler(mAuthenticationContext, (userInfoResponse, ex) -> {
                 Log.d(LOG_TAG, "Calling UserInfo endpoint after token exchange is successful");
                 sendSuccessIntent();
-            }).execute();
+            }).setRequestOptions(mFlow.getRequestOptions()).submit();
         } else {
             sendSuccessIntent();
         }
     }
 
+    /**
+     * Fetches the userinfo response of an AuthenticationContext which is already delivered to the
+     * application, and notifies the listener once the AuthenticationContext is updated.
+     *
+     * @param authenticationContext AuthenticationContext.
+     * @param requestOptions        RequestOptions of the userinfo request.
+     * @param sessionStore          SessionStore, or null.
+     * @param listener              UserInfoUpdateListener.
+     */
+    private static void updateUserInfo(AuthenticationContext authenticationContext,
+            RequestOptions requestOptions, SessionStore sessionStore,
+            UserInfoRequestHandler.UserInfoUpdateListener listener) {
+
+        new UserInfoRequestHandler(authenticationContext, (userInfoResponse, ex) -> {
+            if (ex != null) {
+                Log.e(LOG_TAG, "Error while updating the user from the userinfo endpoint", ex);
+            } else if (sessionStore != null) {
+                SessionHandler.save(sessionStore, authenticationContext);
+            }
+            listener.onUserInfoUpdated(authenticationContext, ex);
+        }).setRequestOptions(requestOptions).submit();
+    }
+
     /**
      * Send successIntent to the application embedding the authentication context object into the
      * intent.
      */
     private void sendSuccessIntent() {
 
+        AuthorizationFlowRegistry.getInstance(this).remove(mFlowState);
+        if (mFlow.getSessionStore() != null) {
+            SessionHandler.save(mFlow.getSessionStore(), mAuthenticationContext);
+        }
+        if (mFlow.getFuture() != null) {
+            mFlow.getFuture().complete(mAuthenticationContext);
+        }
         Intent intent = new Intent(this, mCompleteIntent.getIntentSender().getClass());
-        intent.putExtra(Constants.AUTHENTICATION_CONTEXT, mAuthenticationContext);
+        intent.putExtra(Constants.AUTHENTICATION_CONTEXT, (Parcelable) mAuthenticationContext);
         try {
             mCompleteIntent.send(this, 0, intent);
         } catch (PendingIntent.CanceledException e) {
@@ -219,6 +371,14 @@ public class TokenManagementActivity extends Activity {
         finish();
     }
 
+    private void failAuthorization(Exception exception) {
+
+        AuthorizationFlowRegistry.getInstance(this).remove(mFlowState);
+        if (mFlow.getFuture() != null) {
+            mFlow.getFuture().completeExceptionally(exception);
+        }
+    }
+
     private void sendPendingIntent(PendingIntent pendingIntent) {
 
         try {
@@ -238,5 +398,6 @@ public class TokenManagementActivity extends Activity {
         }
         mCompleteIntent = state.getParcelable(KEY_COMPLETE_INTENT);
         mCancelIntent = state.getParcelable(KEY_CANCEL_INTENT);
+        mFlowState = state.getString(KEY_FLOW_STATE);
     }
 }
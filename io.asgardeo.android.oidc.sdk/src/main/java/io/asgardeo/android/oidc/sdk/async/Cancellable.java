@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.async;
+
+/**
+ * Handle of an SDK operation which can be cancelled by the application, for example when the
+ * screen which started the operation is closed.
+ */
+public interface Cancellable {
+
+    /**
+     * Cancels the operation. The callback of a cancelled operation is not invoked, and the
+     * network request of the operation is aborted once no other caller is waiting for it.
+     *
+     * @return False if the operation was already completed or cancelled.
+     */
+    boolean cancel();
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.async;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small bounded thread pool which runs all the background work of the SDK, so that the SDK
+ * requests neither wait behind the AsyncTasks of the application nor delay them. Queued tasks are
+ * run in the order of their {@link Priority}, and in the order they were submitted within the same
+ * priority.
+ */
+public final class SdkExecutor {
+
+    /**
+     * Priority of a task. Work the user is waiting for runs ahead of background work.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private static final int POOL_SIZE =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final AtomicLong sSequence = new AtomicLong();
+    private static final ThreadPoolExecutor sExecutor;
+    private static final Executor sMainThreadExecutor = new Executor() {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+
+            mHandler.post(command);
+        }
+    };
+
+    static {
+        ThreadFactory threadFactory = new ThreadFactory() {
+
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "asgardeo-sdk-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        sExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), threadFactory);
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private SdkExecutor() {
+
+    }
+
+    /**
+     * Runs the command on the SDK thread pool.
+     *
+     * @param command  Command.
+     * @param priority Priority of the command.
+     */
+    public static void execute(Runnable command, Priority priority) {
+
+        sExecutor.execute(new PrioritizedTask(command, priority));
+    }
+
+    /**
+     * Returns an Executor which runs the commands on the SDK thread pool with the given priority.
+     *
+     * @param priority Priority of the commands.
+     * @return Executor.
+     */
+    public static Executor getExecutor(Priority priority) {
+
+        return command -> execute(command, priority);
+    }
+
+    /**
+     * Returns an Executor which runs the commands on the SDK thread pool one after the other, in
+     * the order they were submitted.
+     *
+     * @param priority Priority of the commands.
+     * @return Executor.
+     */
+    public static Executor newSerialExecutor(Priority priority) {
+
+        return new SerialExecutor(priority);
+    }
+
+    /**
+     * Returns the Executor which runs the commands on the main thread. Callbacks of the SDK are
+     * delivered on it unless another Executor is given.
+     *
+     * @return Executor.
+     */
+    public static Executor getMainThreadExecutor() {
+
+        return sMainThreadExecutor;
+    }
+
+    private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final Runnable mCommand;
+        private final int mPriority;
+        private final long mSequence;
+
+        PrioritizedTask(Runnable command, Priority priority) {
+
+            this.mCommand = command;
+            this.mPriority = priority.ordinal();
+            this.mSequence = sSequence.getAndIncrement();
+        }
+
+        @Override
+        public void run() {
+
+            mCommand.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    private static class SerialExecutor implements Executor {
+
+        private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+        private final Priority mPriority;
+        private Runnable mActive;
+
+        SerialExecutor(Priority priority) {
+
+            this.mPriority = priority;
+        }
+
+        @Override
+        public synchronized void execute(Runnable command) {
+
+            mTasks.offer(() -> {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (mActive == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+
+            mActive = mTasks.poll();
+            if (mActive != null) {
+                SdkExecutor.execute(mActive, mPriority);
+            }
+        }
+    }
+}
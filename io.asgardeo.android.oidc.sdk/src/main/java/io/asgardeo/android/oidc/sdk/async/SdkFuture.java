@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.async;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Composable result of an asynchronous SDK operation. This is a small counterpart of
+ * CompletableFuture, which is not available below API level 24.
+ *
+ * Listeners and the functions given to {@link #thenApply(Transformer)},
+ * {@link #thenCompose(AsyncTransformer)} and {@link #exceptionally(Transformer)} run on the thread
+ * which completes the future, which is the main thread for the operations of the LoginService.
+ * For the same reason {@link #get()} must not be called on the main thread.
+ *
+ * @param <T> Type of the result.
+ */
+public class SdkFuture<T> implements Future<T>, Cancellable {
+
+    private static final Handler sTimeoutHandler = new Handler(Looper.getMainLooper());
+
+    private final Object mLock = new Object();
+    private List<CompletionListener<? super T>> mListeners = new ArrayList<>();
+    private boolean mDone;
+    private T mResult;
+    private Exception mException;
+    private Runnable mCancelHandler;
+
+    /**
+     * Returns a future which is already completed with the value.
+     *
+     * @param value Result.
+     * @param <T>   Type of the result.
+     * @return SdkFuture.
+     */
+    public static <T> SdkFuture<T> completed(T value) {
+
+        SdkFuture<T> future = new SdkFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * Returns a future which has already failed with the exception.
+     *
+     * @param exception Exception.
+     * @param <T>       Type of the result.
+     * @return SdkFuture.
+     */
+    public static <T> SdkFuture<T> failed(Exception exception) {
+
+        SdkFuture<T> future = new SdkFuture<>();
+        future.completeExceptionally(exception);
+        return future;
+    }
+
+    /**
+     * Returns a future which completes when all the futures complete, or fails as soon as one of
+     * them fails.
+     *
+     * @param futures Futures.
+     * @return SdkFuture.
+     */
+    public static SdkFuture<Void> allOf(SdkFuture<?>... futures) {
+
+        SdkFuture<Void> all = new SdkFuture<>();
+        if (futures.length == 0) {
+            all.complete(null);
+            return all;
+        }
+        AtomicInteger remaining = new AtomicInteger(futures.length);
+        for (SdkFuture<?> future : futures) {
+            future.addListener((value, exception) -> {
+                if (exception != null) {
+                    all.completeExceptionally(exception);
+                } else if (remaining.decrementAndGet() == 0) {
+                    all.complete(null);
+                }
+            });
+        }
+        all.setCancelHandler(() -> {
+            for (SdkFuture<?> future : futures) {
+                future.cancel(true);
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Completes the future with the value, unless it is already completed.
+     *
+     * @param value Result.
+     * @return True if this call completed the future.
+     */
+    public boolean complete(T value) {
+
+        return finish(value, null);
+    }
+
+    /**
+     * Fails the future with the exception, unless it is already completed.
+     *
+     * @param exception Exception.
+     * @return True if this call completed the future.
+     */
+    public boolean completeExceptionally(Exception exception) {
+
+        return finish(null, exception);
+    }
+
+    /**
+     * Sets the action which stops the underlying operation when the future is cancelled or times
+     * out.
+     *
+     * @param cancelHandler Action.
+     * @return This future.
+     */
+    public SdkFuture<T> setCancelHandler(Runnable cancelHandler) {
+
+        synchronized (mLock) {
+            if (!mDone) {
+                mCancelHandler = cancelHandler;
+                return this;
+            }
+        }
+        if (isCancelled()) {
+            cancelHandler.run();
+        }
+        return this;
+    }
+
+    /**
+     * Registers a listener which is invoked once the future completes. The listener is invoked
+     * right away if the future is already completed.
+     *
+     * @param listener CompletionListener.
+     * @return This future.
+     */
+    public SdkFuture<T> addListener(CompletionListener<? super T> listener) {
+
+        synchronized (mLock) {
+            if (!mDone) {
+                mListeners.add(listener);
+                return this;
+            }
+        }
+        listener.onComplete(mResult, mException);
+        return this;
+    }
+
+    /**
+     * Returns a future which completes with the result of the function applied to the result of
+     * this future.
+     *
+     * @param transformer Function.
+     * @param <R>         Type of the new result.
+     * @return SdkFuture.
+     */
+    public <R> SdkFuture<R> thenApply(Transformer<? super T, ? extends R> transformer) {
+
+        SdkFuture<R> next = new SdkFuture<>();
+        next.setCancelHandler(() -> cancel(true));
+        addListener((value, exception) -> {
+            if (exception != null) {
+                next.completeExceptionally(exception);
+                return;
+            }
+            try {
+                next.complete(transformer.apply(value));
+            } catch (Exception e) {
+                next.completeExceptionally(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Returns a future which completes with the future returned by the function applied to the
+     * result of this future. This chains an asynchronous operation after this one.
+     *
+     * @param transformer Function.
+     * @param <R>         Type of the new result.
+     * @return SdkFuture.
+     */
+    public <R> SdkFuture<R> thenCompose(AsyncTransformer<? super T, R> transformer) {
+
+        SdkFuture<R> next = new SdkFuture<>();
+        next.setCancelHandler(() -> cancel(true));
+        addListener((value, exception) -> {
+            if (exception != null) {
+                next.completeExceptionally(exception);
+                return;
+            }
+            try {
+                SdkFuture<R> inner = transformer.apply(value);
+                next.setCancelHandler(() -> inner.cancel(true));
+                inner.addListener((innerValue, innerException) -> {
+                    if (innerException != null) {
+                        next.completeExceptionally(innerException);
+                    } else {
+                        next.complete(innerValue);
+                    }
+                });
+            } catch (Exception e) {
+                next.completeExceptionally(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Returns a future which completes with the result of this future, or with the result of the
+     * function applied to the exception if this future fails.
+     *
+     * @param transformer Function.
+     * @return SdkFuture.
+     */
+    public SdkFuture<T> exceptionally(Transformer<Exception, ? extends T> transformer) {
+
+        SdkFuture<T> next = new SdkFuture<>();
+        next.setCancelHandler(() -> cancel(true));
+        addListener((value, exception) -> {
+            if (exception == null) {
+                next.complete(value);
+                return;
+            }
+            try {
+                next.complete(transformer.apply(exception));
+            } catch (Exception e) {
+                next.completeExceptionally(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Fails the future with a TimeoutException and stops the underlying operation if it does not
+     * complete within the timeout.
+     *
+     * @param timeout Timeout.
+     * @param unit    Unit of the timeout.
+     * @return This future.
+     */
+    public SdkFuture<T> orTimeout(long timeout, TimeUnit unit) {
+
+        Runnable timeoutTask = () -> {
+            Runnable cancelHandler;
+            synchronized (mLock) {
+                cancelHandler = mCancelHandler;
+            }
+            if (completeExceptionally(new TimeoutException("Operation timed out after "
+                    + unit.toMillis(timeout) + " ms")) && cancelHandler != null) {
+                cancelHandler.run();
+            }
+        };
+        sTimeoutHandler.postDelayed(timeoutTask, unit.toMillis(timeout));
+        addListener((value, exception) -> sTimeoutHandler.removeCallbacks(timeoutTask));
+        return this;
+    }
+
+    @Override
+    public boolean cancel() {
+
+        return cancel(true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+
+        Runnable cancelHandler;
+        synchronized (mLock) {
+            cancelHandler = mCancelHandler;
+        }
+        if (!completeExceptionally(new CancellationException())) {
+            return false;
+        }
+        if (cancelHandler != null) {
+            cancelHandler.run();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+
+        synchronized (mLock) {
+            return mException instanceof CancellationException;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+
+        synchronized (mLock) {
+            return mDone;
+        }
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+
+        synchronized (mLock) {
+            while (!mDone) {
+                mLock.wait();
+            }
+            return getResult();
+        }
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (mLock) {
+            while (!mDone) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(mLock, remaining);
+            }
+            return getResult();
+        }
+    }
+
+    private T getResult() throws ExecutionException {
+
+        if (mException instanceof CancellationException) {
+            throw (CancellationException) mException;
+        }
+        if (mException != null) {
+            throw new ExecutionException(mException);
+        }
+        return mResult;
+    }
+
+    private boolean finish(T value, Exception exception) {
+
+        List<CompletionListener<? super T>> listeners;
+        synchronized (mLock) {
+            if (mDone) {
+                return false;
+            }
+            mDone = true;
+            mResult = value;
+            mException = exception;
+            mCancelHandler = null;
+            listeners = mListeners;
+            mListeners = null;
+            mLock.notifyAll();
+        }
+        for (CompletionListener<? super T> listener : listeners) {
+            listener.onComplete(value, exception);
+        }
+        return true;
+    }
+
+    /**
+     * Listener of the completion of a future.
+     *
+     * @param <T> Type of the result.
+     */
+    public interface CompletionListener<T> {
+
+        /**
+         * Handle the result of the future.
+         *
+         * @param value     Result, or null if the future failed.
+         * @param exception Exception if the future failed, or null.
+         */
+        void onComplete(T value, Exception exception);
+    }
+
+    /**
+     * Function applied to the result of a future.
+     *
+     * @param <T> Type of the input.
+     * @param <R> Type of the output.
+     */
+    public interface Transformer<T, R> {
+
+        /**
+         * Applies the function.
+         *
+         * @param value Input.
+         * @return Output.
+         * @throws Exception If the function fails. The returned future fails with it.
+         */
+        R apply(T value) throws Exception;
+    }
+
+    /**
+     * Function which starts an asynchronous operation with the result of a future.
+     *
+     * @param <T> Type of the input.
+     * @param <R> Type of the result of the operation.
+     */
+    public interface AsyncTransformer<T, R> {
+
+        /**
+         * Starts the operation.
+         *
+         * @param value Input.
+         * @return Future of the operation.
+         * @throws Exception If the operation cannot be started. The returned future fails with it.
+         */
+        SdkFuture<R> apply(T value) throws Exception;
+    }
+}
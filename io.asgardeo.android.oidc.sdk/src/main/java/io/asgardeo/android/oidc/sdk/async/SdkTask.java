@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.async;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background task of the SDK, run on the {@link SdkExecutor}. The work is done in
+ * {@link #doInBackground()} and the result is delivered to {@link #onPostExecute(Object)} on the
+ * callback Executor, which is the main thread unless the caller chooses another one.
+ *
+ * @param <Progress> Type of the intermediate results published while the task runs.
+ * @param <Result>   Type of the result.
+ */
+public abstract class SdkTask<Progress, Result> {
+
+    private static final Handler sTimeoutHandler = new Handler(Looper.getMainLooper());
+
+    private final AtomicBoolean mStarted = new AtomicBoolean();
+    private final AtomicBoolean mCancelled = new AtomicBoolean();
+    private final Runnable mTimeoutTask = () -> abort(true);
+    private volatile boolean mTimedOut;
+    private long mTimeout;
+    private final Object mThreadLock = new Object();
+    private Thread mThread;
+    private Executor mCallbackExecutor = SdkExecutor.getMainThreadExecutor();
+    private SdkExecutor.Priority mPriority = SdkExecutor.Priority.INTERACTIVE;
+
+    /**
+     * Sets the Executor on which the callbacks of this task are invoked. This must be called
+     * before the task is executed.
+     *
+     * @param callbackExecutor Executor.
+     * @return This task.
+     */
+    public SdkTask<Progress, Result> setCallbackExecutor(Executor callbackExecutor) {
+
+        this.mCallbackExecutor = callbackExecutor;
+        return this;
+    }
+
+    /**
+     * Sets the priority of this task. This must be called before the task is executed.
+     *
+     * @param priority Priority.
+     * @return This task.
+     */
+    public SdkTask<Progress, Result> setPriority(SdkExecutor.Priority priority) {
+
+        this.mPriority = priority;
+        return this;
+    }
+
+    /**
+     * Sets the time after which the task is aborted if it has not completed, including the time
+     * it waits in the queue. This must be called before the task is executed.
+     *
+     * @param timeout Timeout in milliseconds, or 0 for no limit.
+     * @return This task.
+     */
+    public SdkTask<Progress, Result> setTimeout(long timeout) {
+
+        this.mTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Returns the Executor on which the callbacks of this task are invoked.
+     *
+     * @return Executor.
+     */
+    public Executor getCallbackExecutor() {
+
+        return mCallbackExecutor;
+    }
+
+    /**
+     * Queues the task on the SdkExecutor. A task can be executed only once.
+     *
+     * @return This task.
+     */
+    public SdkTask<Progress, Result> execute() {
+
+        if (!mStarted.compareAndSet(false, true)) {
+            throw new IllegalStateException("The task has already been executed");
+        }
+        if (mTimeout > 0) {
+            sTimeoutHandler.postDelayed(mTimeoutTask, mTimeout);
+        }
+        SdkExecutor.execute(this::run, mPriority);
+        return this;
+    }
+
+    /**
+     * Cancels the task. A task which has not started yet will not run, and a running task is
+     * interrupted. {@link #onCancelled()} is invoked instead of {@link #onPostExecute(Object)}.
+     *
+     * @return False if the task was already cancelled.
+     */
+    public boolean cancel() {
+
+        return abort(false);
+    }
+
+    /**
+     * Aborts the task, whether or not it is shared with other callers.
+     *
+     * @param timedOut Whether the task is aborted because it timed out.
+     * @return False if the task was already aborted.
+     */
+    protected final boolean abort(boolean timedOut) {
+
+        if (!mCancelled.compareAndSet(false, true)) {
+            return false;
+        }
+        mTimedOut = timedOut;
+        sTimeoutHandler.removeCallbacks(mTimeoutTask);
+        synchronized (mThreadLock) {
+            if (mThread != null) {
+                mThread.interrupt();
+            }
+        }
+        onAbort();
+        return true;
+    }
+
+    /**
+     * Returns whether the task was aborted because it did not complete within its timeout.
+     *
+     * @return True if the task timed out.
+     */
+    public boolean isTimedOut() {
+
+        return mTimedOut;
+    }
+
+    /**
+     * Returns whether the task is cancelled.
+     *
+     * @return True if the task is cancelled.
+     */
+    public boolean isCancelled() {
+
+        return mCancelled.get();
+    }
+
+    /**
+     * Does the work of the task on a thread of the SdkExecutor.
+     *
+     * @return Result.
+     */
+    protected abstract Result doInBackground();
+
+    /**
+     * Invoked on the thread which aborts the task. Tasks blocked on I/O, which does not react to
+     * interrupts, release it here.
+     */
+    protected void onAbort() {
+
+    }
+
+    /**
+     * Invoked on the callback Executor with the value given to {@link #publishProgress(Object)}.
+     *
+     * @param progress Intermediate result.
+     */
+    protected void onProgressUpdate(Progress progress) {
+
+    }
+
+    /**
+     * Invoked on the callback Executor with the result of {@link #doInBackground()}, unless the
+     * task is cancelled.
+     *
+     * @param result Result.
+     */
+    protected void onPostExecute(Result result) {
+
+    }
+
+    /**
+     * Invoked on the callback Executor instead of {@link #onPostExecute(Object)} when the task is
+     * cancelled or timed out.
+     */
+    protected void onCancelled() {
+
+    }
+
+    /**
+     * Publishes an intermediate result from {@link #doInBackground()}.
+     *
+     * @param progress Intermediate result.
+     */
+    protected final void publishProgress(Progress progress) {
+
+        if (!isCancelled()) {
+            mCallbackExecutor.execute(() -> onProgressUpdate(progress));
+        }
+    }
+
+    /**
+     * Runs the command on the callback Executor of the other task. The command is run right away
+     * when both tasks use the same callback Executor, since this is then already running on it.
+     *
+     * @param other   Other task.
+     * @param command Command.
+     */
+    protected final void deliverTo(SdkTask<?, ?> other, Runnable command) {
+
+        if (other.mCallbackExecutor == mCallbackExecutor) {
+            command.run();
+        } else {
+            other.mCallbackExecutor.execute(command);
+        }
+    }
+
+    private void run() {
+
+        Result result = null;
+        if (!isCancelled()) {
+            synchronized (mThreadLock) {
+                mThread = Thread.currentThread();
+            }
+            try {
+                result = doInBackground();
+            } finally {
+                synchronized (mThreadLock) {
+                    mThread = null;
+                }
+                // Do not leak an interrupt of this task to the next task of the pool thread.
+                Thread.interrupted();
+            }
+        }
+        sTimeoutHandler.removeCallbacks(mTimeoutTask);
+        Result finalResult = result;
+        mCallbackExecutor.execute(() -> {
+            if (isCancelled()) {
+                onCancelled();
+            } else {
+                onPostExecute(finalResult);
+            }
+        });
+    }
+}
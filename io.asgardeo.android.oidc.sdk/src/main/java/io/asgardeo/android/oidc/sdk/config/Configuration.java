@@ -20,6 +20,8 @@ package io.asgardeo.android.oidc.sdk.config;
 
 import android.net.Uri;
 
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
 /**
  * This interface is used to get configurations of an OIDC application.
  */
@@ -52,4 +54,57 @@ public interface Configuration {
      * @return discoveryURI.
      */
     Uri getDiscoveryUri();
+
+    /**
+     * Returns the time in milliseconds before the expiry of the access token at which it is
+     * refreshed in the background.
+     *
+     * @return Token refresh margin.
+     */
+    default long getTokenRefreshMargin() {
+
+        return Constants.DEFAULT_TOKEN_REFRESH_MARGIN;
+    }
+
+    /**
+     * Returns the maximum size in bytes of a response the SDK reads from the Identity Server.
+     *
+     * @return Maximum response size.
+     */
+    default long getMaxResponseSize() {
+
+        return Constants.DEFAULT_MAX_RESPONSE_SIZE;
+    }
+
+    /**
+     * Returns the time in milliseconds the SDK waits to connect to the Identity Server.
+     *
+     * @return Connect timeout.
+     */
+    default long getConnectTimeout() {
+
+        return Constants.DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    /**
+     * Returns the time in milliseconds the SDK waits for data from the Identity Server once
+     * connected.
+     *
+     * @return Read timeout.
+     */
+    default long getReadTimeout() {
+
+        return Constants.DEFAULT_READ_TIMEOUT;
+    }
+
+    /**
+     * Returns the time in milliseconds after which an SDK request, such as the discovery or the
+     * userinfo request, is abandoned, including any time it waits to be executed.
+     *
+     * @return Request timeout.
+     */
+    default long getRequestTimeout() {
+
+        return Constants.DEFAULT_REQUEST_TIMEOUT;
+    }
 }
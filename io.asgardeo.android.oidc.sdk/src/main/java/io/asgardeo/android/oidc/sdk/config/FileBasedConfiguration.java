@@ -25,26 +25,33 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.nio.charset.Charset;
 
 import okio.Buffer;
 import okio.BufferedSource;
 import okio.Okio;
 import io.asgardeo.android.oidc.sdk.R;
+import io.asgardeo.android.oidc.sdk.async.SdkExecutor;
+import io.asgardeo.android.oidc.sdk.async.SdkFuture;
 import io.asgardeo.android.oidc.sdk.exception.ClientException;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
 
 /**
- * Reads and validates the configuration from res/raw/oidc_config.json file.
+ * Reads and validates the configuration from res/raw/oidc_config.json file. The file is read once
+ * per process and the configuration is kept for the lifetime of the process. Use
+ * {@link #loadAsync(Context)} to read it without blocking the main thread.
  */
 public class FileBasedConfiguration implements Configuration {
 
-    private static WeakReference<FileBasedConfiguration> sInstance = new WeakReference<>(null);
+    private static final Object sLock = new Object();
+    private static volatile FileBasedConfiguration sInstance;
+    private static SdkFuture<FileBasedConfiguration> sLoadFuture;
 
     private final Resources mResources;
 
@@ -53,6 +60,11 @@ public class FileBasedConfiguration implements Configuration {
     private String mScope;
     private Uri mRedirectUri;
     private Uri mDiscoveryUri;
+    private long mTokenRefreshMargin;
+    private long mMaxResponseSize;
+    private long mConnectTimeout;
+    private long mReadTimeout;
+    private long mRequestTimeout;
 
     private static final String LOG_TAG = "FileBasedConfiguration";
 
@@ -63,22 +75,104 @@ public class FileBasedConfiguration implements Configuration {
     }
 
     /**
-     * Returns an instance of the FileBasedConfiguration class.
+     * Returns an instance of the FileBasedConfiguration class. The configuration file is read on
+     * the calling thread the first time, so this should not be called on the main thread. Use
+     * {@link #loadAsync(Context)} there instead.
      *
      * @param context Context object with information about the current state of the application.
      * @return FileBasedConfiguration instance.
      */
+    @WorkerThread
     public static FileBasedConfiguration getInstance(Context context) throws ClientException {
 
-        FileBasedConfiguration config = sInstance.get();
+        FileBasedConfiguration config = sInstance;
         if (config == null) {
-            config = new FileBasedConfiguration(context);
-            sInstance = new WeakReference<>(config);
+            synchronized (sLock) {
+                config = sInstance;
+                if (config == null) {
+                    config = new FileBasedConfiguration(context.getApplicationContext());
+                    sInstance = config;
+                }
+            }
         }
-
         return config;
     }
 
+    /**
+     * Returns the FileBasedConfiguration if it is already read, without reading the configuration
+     * file.
+     *
+     * @return FileBasedConfiguration instance, or null if it is not read yet.
+     */
+    @Nullable
+    public static FileBasedConfiguration peekInstance() {
+
+        return sInstance;
+    }
+
+    /**
+     * Reads the configuration on the SDK thread pool and returns a future of it, which completes
+     * on the main thread. Concurrent callers share a single read of the configuration file, and
+     * cancelling the returned future does not stop the read for the others. The future fails
+     * with a ClientException if the configuration is invalid.
+     *
+     * @param context Context object with information about the current state of the application.
+     * @return Future of the FileBasedConfiguration.
+     */
+    public static SdkFuture<FileBasedConfiguration> loadAsync(Context context) {
+
+        FileBasedConfiguration config = sInstance;
+        if (config != null) {
+            return SdkFuture.completed(config);
+        }
+        SdkFuture<FileBasedConfiguration> loadFuture;
+        synchronized (sLock) {
+            if (sLoadFuture == null) {
+                sLoadFuture = new SdkFuture<>();
+                Context applicationContext = context.getApplicationContext();
+                SdkExecutor.execute(() -> load(applicationContext),
+                        SdkExecutor.Priority.INTERACTIVE);
+            }
+            loadFuture = sLoadFuture;
+        }
+        SdkFuture<FileBasedConfiguration> future = new SdkFuture<>();
+        loadFuture.addListener((loadedConfig, exception) -> SdkExecutor.getMainThreadExecutor()
+                .execute(() -> {
+                    if (exception != null) {
+                        future.completeExceptionally(exception);
+                    } else {
+                        future.complete(loadedConfig);
+                    }
+                }));
+        return future;
+    }
+
+    private static void load(Context context) {
+
+        SdkFuture<FileBasedConfiguration> loadFuture;
+        FileBasedConfiguration config = null;
+        ClientException exception = null;
+        try {
+            config = getInstance(context);
+        } catch (ClientException e) {
+            Log.e(LOG_TAG, "Error while reading the configuration", e);
+            exception = e;
+        } catch (RuntimeException e) {
+            Log.e(LOG_TAG, "Error while reading the configuration", e);
+            exception = new ClientException("Error while reading the configuration", e);
+        }
+        synchronized (sLock) {
+            loadFuture = sLoadFuture;
+            // A failed read is not cached, so that a later call can try again.
+            sLoadFuture = null;
+        }
+        if (exception != null) {
+            loadFuture.completeExceptionally(exception);
+        } else {
+            loadFuture.complete(config);
+        }
+    }
+
     /**
      * Returns the client id specified in the res/raw/oidc_config.json file.
      *
@@ -125,6 +219,61 @@ public class FileBasedConfiguration implements Configuration {
         return mDiscoveryUri;
     }
 
+    /**
+     * Returns the token refresh margin specified in seconds in the res/raw/oidc_config.json file.
+     *
+     * @return Token refresh margin in milliseconds.
+     */
+    @Override
+    public long getTokenRefreshMargin() {
+
+        return mTokenRefreshMargin;
+    }
+
+    /**
+     * Returns the maximum size of a response read from the Identity Server, in bytes.
+     *
+     * @return Maximum response size.
+     */
+    @Override
+    public long getMaxResponseSize() {
+
+        return mMaxResponseSize;
+    }
+
+    /**
+     * Returns the connect timeout specified in seconds in the res/raw/oidc_config.json file.
+     *
+     * @return Connect timeout in milliseconds.
+     */
+    @Override
+    public long getConnectTimeout() {
+
+        return mConnectTimeout;
+    }
+
+    /**
+     * Returns the read timeout specified in seconds in the res/raw/oidc_config.json file.
+     *
+     * @return Read timeout in milliseconds.
+     */
+    @Override
+    public long getReadTimeout() {
+
+        return mReadTimeout;
+    }
+
+    /**
+     * Returns the request timeout specified in seconds in the res/raw/oidc_config.json file.
+     *
+     * @return Request timeout in milliseconds.
+     */
+    @Override
+    public long getRequestTimeout() {
+
+        return mRequestTimeout;
+    }
+
     /**
      * Reads the configuration values.
      */
@@ -147,6 +296,21 @@ public class FileBasedConfiguration implements Configuration {
         mScope = getRequiredConfigString(Constants.AUTHORIZATION_SCOPE);
         mRedirectUri = getRequiredUri(getRequiredConfigString(Constants.REDIRECT_URI));
         mDiscoveryUri = getRequiredUri(getRequiredConfigString(Constants.DISCOVERY_URI));
+        mTokenRefreshMargin = mConfigJson.has(Constants.TOKEN_REFRESH_MARGIN)
+                ? mConfigJson.optLong(Constants.TOKEN_REFRESH_MARGIN) * 1000L
+                : Constants.DEFAULT_TOKEN_REFRESH_MARGIN;
+        mMaxResponseSize = mConfigJson.has(Constants.MAX_RESPONSE_SIZE)
+                ? mConfigJson.optLong(Constants.MAX_RESPONSE_SIZE)
+                : Constants.DEFAULT_MAX_RESPONSE_SIZE;
+        mConnectTimeout = mConfigJson.has(Constants.CONNECT_TIMEOUT)
+                ? mConfigJson.optLong(Constants.CONNECT_TIMEOUT) * 1000L
+                : Constants.DEFAULT_CONNECT_TIMEOUT;
+        mReadTimeout = mConfigJson.has(Constants.READ_TIMEOUT)
+                ? mConfigJson.optLong(Constants.READ_TIMEOUT) * 1000L
+                : Constants.DEFAULT_READ_TIMEOUT;
+        mRequestTimeout = mConfigJson.has(Constants.REQUEST_TIMEOUT)
+                ? mConfigJson.optLong(Constants.REQUEST_TIMEOUT) * 1000L
+                : Constants.DEFAULT_REQUEST_TIMEOUT;
     }
 
     /**
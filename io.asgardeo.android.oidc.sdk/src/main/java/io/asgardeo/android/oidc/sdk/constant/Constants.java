@@ -27,18 +27,78 @@ public class Constants {
     public static final String HTTP_GET = "GET";
     public static final String AUTHORIZATION = "Authorization";
     public static final String BEARER = "Bearer ";
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1000;
+    public static final int DEFAULT_READ_TIMEOUT = 10 * 1000;
+    public static final long DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024L;
+    public static final long DEFAULT_REQUEST_TIMEOUT = 30 * 1000L;
+    public static final String CACHE_CONTROL = "Cache-Control";
+    public static final String ETAG = "ETag";
+    public static final String LAST_MODIFIED = "Last-Modified";
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    public static final String NO_STORE = "no-store";
+    public static final String NO_CACHE = "no-cache";
+    public static final String MAX_AGE = "max-age";
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    // Constants related to retries and the circuit breaker of HTTP requests.
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long RETRY_BASE_DELAY = 500L;
+    public static final long RETRY_MAX_DELAY = 5 * 1000L;
+    public static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    public static final long CIRCUIT_BREAKER_OPEN_DURATION = 30 * 1000L;
+    public static final long CIRCUIT_BREAKER_MAX_OPEN_DURATION = 5 * 60 * 1000L;
 
     // Constants related to Configuration.
     public static final String DISCOVERY_URI = "discovery_uri";
     public static final String CLIENT_ID = "client_id";
     public static final String AUTHORIZATION_SCOPE = "authorization_scope";
     public static final String REDIRECT_URI = "redirect_uri";
+    public static final String TOKEN_REFRESH_MARGIN = "token_refresh_margin";
+    public static final String MAX_RESPONSE_SIZE = "max_response_size";
+    public static final String CONNECT_TIMEOUT = "connect_timeout";
+    public static final String READ_TIMEOUT = "read_timeout";
+    public static final String REQUEST_TIMEOUT = "request_timeout";
 
     // Constants related to OIDC discovery response.
+    public static final String ISSUER = "issuer";
     public static final String AUTHORIZATION_ENDPOINT = "authorization_endpoint";
     public static final String TOKEN_ENDPOINT = "token_endpoint";
     public static final String LOGOUT_ENDPOINT = "end_session_endpoint";
     public static final String USERINFO_ENDPOINT = "userinfo_endpoint";
+    public static final String JWKS_URI = "jwks_uri";
+
+    // Constants related to OIDC discovery cache.
+    public static final String DISCOVERY_CACHE_DIRECTORY = "asgardeo_discovery";
+    public static final long DEFAULT_DISCOVERY_MAX_AGE = 60 * 60 * 1000L;
+    public static final long DISCOVERY_MAX_STALE = 7 * 24 * 60 * 60 * 1000L;
+
+    // Constants related to ID token validation.
+    public static final String JWKS_CACHE_DIRECTORY = "asgardeo_jwks";
+    public static final long JWKS_MIN_REFETCH_INTERVAL = 60 * 1000L;
+
+    // Constants related to token refresh.
+    public static final long DEFAULT_TOKEN_REFRESH_MARGIN = 60 * 1000L;
+    public static final long TOKEN_REFRESH_RETRY_INTERVAL = 30 * 1000L;
+    public static final long TOKEN_REFRESH_MAX_RETRY_INTERVAL = 30 * 60 * 1000L;
+    public static final long TOKEN_REFRESH_CHECK_INTERVAL = 5 * 60 * 1000L;
+
+    // Constants related to the authorization flows in progress.
+    public static final String AUTHORIZATION_FLOW_DIRECTORY = "asgardeo_flows";
+    public static final int MAX_AUTHORIZATION_FLOWS = 8;
+    public static final long AUTHORIZATION_FLOW_EXPIRY = 10 * 60 * 1000L;
+
+    // Constants related to the shared AuthorizationService.
+    public static final long AUTHORIZATION_SERVICE_IDLE_TIMEOUT = 60 * 1000L;
+
+    // Constants related to the login service registry.
+    public static final int MAX_LOGIN_SERVICES = 4;
+    public static final int LOGIN_SERVICES_HARD_LIMIT = 2 * MAX_LOGIN_SERVICES;
+
+    // Constants related to the session store.
+    public static final String SESSION_FILE_NAME = "asgardeo_session";
+    public static final String SESSION_KEY_ALIAS = "asgardeo_session_key";
 
     // Constants related to OIDC userinfo response.
     public static final String SUBJECT = "sub";
@@ -18,20 +18,53 @@
 
 package io.asgardeo.android.oidc.sdk.context;
 
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
 import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
 import io.asgardeo.android.oidc.sdk.model.User;
 import io.asgardeo.android.oidc.sdk.model.UserInfoResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
- * This class holds the all context related to authentication flow.
+ * This class holds the all context related to authentication flow. It is sent to the application
+ * as a Parcelable, which is written in the compact binary form of {@link #writeTo(DataOutput)}.
  */
-public class AuthenticationContext implements Serializable {
+public class AuthenticationContext implements Serializable, Parcelable {
 
     private static final long serialVersionUID = -6089927518022641315L;
 
+    public static final Creator<AuthenticationContext> CREATOR =
+            new Creator<AuthenticationContext>() {
+
+                @Override
+                public AuthenticationContext createFromParcel(Parcel source) {
+
+                    try {
+                        return readFrom(new DataInputStream(
+                                new ByteArrayInputStream(source.createByteArray())));
+                    } catch (IOException e) {
+                        throw new BadParcelableException(e);
+                    }
+                }
+
+                @Override
+                public AuthenticationContext[] newArray(int size) {
+
+                    return new AuthenticationContext[size];
+                }
+            };
+
     private OIDCDiscoveryResponse mDiscoveryResponse;
     private OAuth2TokenResponse mOAuth2TokenResponse;
     private UserInfoResponse mUserInfoResponse;
@@ -108,4 +141,74 @@ public class AuthenticationContext implements Serializable {
     public User getUser() {
         return mUser;
     }
+
+    /**
+     * Writes the authentication context in the compact binary form used by the session store.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        out.writeBoolean(mDiscoveryResponse != null);
+        if (mDiscoveryResponse != null) {
+            mDiscoveryResponse.writeTo(out);
+        }
+        out.writeBoolean(mOAuth2TokenResponse != null);
+        if (mOAuth2TokenResponse != null) {
+            mOAuth2TokenResponse.writeTo(out);
+        }
+        out.writeBoolean(mUserInfoResponse != null);
+        if (mUserInfoResponse != null) {
+            mUserInfoResponse.writeTo(out);
+        }
+        out.writeBoolean(mUser != null);
+        if (mUser != null) {
+            mUser.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads the authentication context written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return AuthenticationContext.
+     * @throws IOException
+     */
+    public static AuthenticationContext readFrom(DataInput in) throws IOException {
+
+        AuthenticationContext authenticationContext = new AuthenticationContext();
+        if (in.readBoolean()) {
+            authenticationContext.setOIDCDiscoveryResponse(OIDCDiscoveryResponse.readFrom(in));
+        }
+        if (in.readBoolean()) {
+            authenticationContext.setOAuth2TokenResponse(OAuth2TokenResponse.readFrom(in));
+        }
+        if (in.readBoolean()) {
+            authenticationContext.setUserInfoResponse(UserInfoResponse.readFrom(in));
+        }
+        if (in.readBoolean()) {
+            authenticationContext.setUser(User.readFrom(in));
+        }
+        return authenticationContext;
+    }
+
+    @Override
+    public int describeContents() {
+
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            // Writing to memory does not fail.
+            throw new BadParcelableException(e);
+        }
+        dest.writeByteArray(bytes.toByteArray());
+    }
 }
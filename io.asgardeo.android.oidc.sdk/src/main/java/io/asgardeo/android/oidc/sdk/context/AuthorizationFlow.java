@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.context;
+
+import io.asgardeo.android.oidc.sdk.async.SdkFuture;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.handler.UserInfoRequestHandler;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * State of an authorization flow which is waiting for the response of the authorization endpoint.
+ * Only the AuthenticationContext, the callUserInfo option and the RequestOptions survive the death
+ * of the process.
+ * The SessionStore, the future and the listener belong to the process which started the flow.
+ */
+public class AuthorizationFlow {
+
+    private final AuthenticationContext mAuthenticationContext;
+    private final OAuth2TokenResponse mTokenResponse;
+    private final boolean mCallUserInfo;
+    private final long mCreatedAt;
+    private RequestOptions mRequestOptions = RequestOptions.getDefault();
+    private SessionStore mSessionStore;
+    private SdkFuture<AuthenticationContext> mFuture;
+    private UserInfoRequestHandler.UserInfoUpdateListener mUserInfoListener;
+    private volatile boolean mCancelled;
+
+    public AuthorizationFlow(AuthenticationContext authenticationContext,
+            OAuth2TokenResponse tokenResponse, boolean callUserInfo) {
+
+        this(authenticationContext, tokenResponse, callUserInfo, System.currentTimeMillis());
+    }
+
+    private AuthorizationFlow(AuthenticationContext authenticationContext,
+            OAuth2TokenResponse tokenResponse, boolean callUserInfo, long createdAt) {
+
+        this.mAuthenticationContext = authenticationContext;
+        this.mTokenResponse = tokenResponse;
+        this.mCallUserInfo = callUserInfo;
+        this.mCreatedAt = createdAt;
+    }
+
+    /**
+     * Sets the timeouts and the maximum response size of the requests made to complete the flow.
+     *
+     * @param requestOptions RequestOptions.
+     * @return This flow.
+     */
+    public AuthorizationFlow setRequestOptions(RequestOptions requestOptions) {
+
+        this.mRequestOptions = requestOptions;
+        return this;
+    }
+
+    /**
+     * Sets the SessionStore in which the AuthenticationContext is stored after the login.
+     *
+     * @param sessionStore SessionStore, or null.
+     * @return This flow.
+     */
+    public AuthorizationFlow setSessionStore(SessionStore sessionStore) {
+
+        this.mSessionStore = sessionStore;
+        return this;
+    }
+
+    /**
+     * Sets the future which is completed with the AuthenticationContext after the login.
+     *
+     * @param future Future, or null.
+     * @return This flow.
+     */
+    public AuthorizationFlow setFuture(SdkFuture<AuthenticationContext> future) {
+
+        this.mFuture = future;
+        return this;
+    }
+
+    /**
+     * Sets the listener of the userinfo response fetched after the success intent is sent.
+     *
+     * @param userInfoListener Listener, or null to wait for the userinfo response.
+     * @return This flow.
+     */
+    public AuthorizationFlow setUserInfoListener(
+            UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
+        this.mUserInfoListener = userInfoListener;
+        return this;
+    }
+
+    /**
+     * Returns the AuthenticationContext of the flow.
+     *
+     * @return AuthenticationContext.
+     */
+    public AuthenticationContext getAuthenticationContext() {
+
+        return mAuthenticationContext;
+    }
+
+    /**
+     * Returns the OAuth2TokenResponse which is filled by the token exchange.
+     *
+     * @return OAuth2TokenResponse.
+     */
+    public OAuth2TokenResponse getTokenResponse() {
+
+        return mTokenResponse;
+    }
+
+    /**
+     * Returns whether the UserInfo endpoint is called after the token exchange.
+     *
+     * @return callUserInfo.
+     */
+    public boolean isCallUserInfo() {
+
+        return mCallUserInfo;
+    }
+
+    /**
+     * Returns the RequestOptions of the flow.
+     *
+     * @return RequestOptions.
+     */
+    public RequestOptions getRequestOptions() {
+
+        return mRequestOptions;
+    }
+
+    /**
+     * Returns the SessionStore of the flow. The SessionStore is not stored with the flow, so a flow
+     * which is resumed after the process is killed has none.
+     *
+     * @return SessionStore, or null.
+     */
+    public SessionStore getSessionStore() {
+
+        return mSessionStore;
+    }
+
+    /**
+     * Returns the future of the flow.
+     *
+     * @return Future, or null.
+     */
+    public SdkFuture<AuthenticationContext> getFuture() {
+
+        return mFuture;
+    }
+
+    /**
+     * Returns the listener of the userinfo response.
+     *
+     * @return UserInfoUpdateListener, or null.
+     */
+    public UserInfoRequestHandler.UserInfoUpdateListener getUserInfoListener() {
+
+        return mUserInfoListener;
+    }
+
+    /**
+     * Marks the flow as cancelled by the application, so that it is not completed when the browser
+     * returns.
+     */
+    void markCancelled() {
+
+        mCancelled = true;
+    }
+
+    /**
+     * Returns whether the application cancelled the flow.
+     *
+     * @return True if the flow is cancelled.
+     */
+    public boolean isCancelled() {
+
+        return mCancelled;
+    }
+
+    /**
+     * Returns whether the flow is too old to be resumed.
+     *
+     * @return True if the flow has expired.
+     */
+    public boolean isExpired() {
+
+        return System.currentTimeMillis() - mCreatedAt > Constants.AUTHORIZATION_FLOW_EXPIRY;
+    }
+
+    /**
+     * Writes the state of the flow which survives the death of the process.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        out.writeLong(mCreatedAt);
+        out.writeBoolean(mCallUserInfo);
+        out.writeLong(mRequestOptions.getConnectTimeout());
+        out.writeLong(mRequestOptions.getReadTimeout());
+        out.writeLong(mRequestOptions.getRequestTimeout());
+        out.writeLong(mRequestOptions.getMaxResponseSize());
+        mAuthenticationContext.writeTo(out);
+    }
+
+    /**
+     * Reads a flow written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return AuthorizationFlow.
+     * @throws IOException
+     */
+    public static AuthorizationFlow readFrom(DataInput in) throws IOException {
+
+        long createdAt = in.readLong();
+        boolean callUserInfo = in.readBoolean();
+        RequestOptions requestOptions = new RequestOptions(in.readLong(), in.readLong(),
+                in.readLong(), in.readLong());
+        AuthenticationContext authenticationContext = AuthenticationContext.readFrom(in);
+        return new AuthorizationFlow(authenticationContext, new OAuth2TokenResponse(),
+                callUserInfo, createdAt).setRequestOptions(requestOptions);
+    }
+}
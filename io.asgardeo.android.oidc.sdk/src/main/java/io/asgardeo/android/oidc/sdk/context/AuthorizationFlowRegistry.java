@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.context;
+
+import android.content.Context;
+import android.util.Log;
+
+import io.asgardeo.android.oidc.sdk.async.SdkExecutor;
+import io.asgardeo.android.oidc.sdk.async.SdkFuture;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.util.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Registry of the authorization flows which are waiting for the response of the authorization
+ * endpoint, keyed by the OAuth state of their authorization request. Several flows can be in
+ * progress at the same time, e.g. for different accounts.
+ *
+ * The registry keeps at most {@link Constants#MAX_AUTHORIZATION_FLOWS} flows, for at most
+ * {@link Constants#AUTHORIZATION_FLOW_EXPIRY}. Each flow is also written to the application cache
+ * directory, so that a process which is killed while the user is in the browser resumes the token
+ * exchange when the browser returns. The disk is only accessed on a background thread. A flow which
+ * is read back from the disk has no {@link SessionStore}, since the store is not persisted with it.
+ */
+public class AuthorizationFlowRegistry {
+
+    private static final String LOG_TAG = "AuthorizationFlows";
+    private static final byte FORMAT_VERSION = 2;
+    private static AuthorizationFlowRegistry sInstance;
+
+    // Ordered from the oldest flow to the newest one.
+    private final LinkedHashMap<String, AuthorizationFlow> mFlows = new LinkedHashMap<>();
+    // Removed flows whose files are not deleted yet, so that a pending read does not restore them.
+    private final Set<String> mRemovedStates = new HashSet<>();
+    private final Context mContext;
+    private final Executor mDiskExecutor =
+            SdkExecutor.newSerialExecutor(SdkExecutor.Priority.BACKGROUND);
+
+    private AuthorizationFlowRegistry(Context context) {
+
+        this.mContext = context;
+        mDiskExecutor.execute(this::deleteExpiredFiles);
+    }
+
+    /**
+     * Returns the process wide instance of the AuthorizationFlowRegistry.
+     *
+     * @param context Context.
+     * @return AuthorizationFlowRegistry instance.
+     */
+    public static synchronized AuthorizationFlowRegistry getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new AuthorizationFlowRegistry(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Registers a flow. The oldest flow is dropped if the registry is full.
+     *
+     * @param state AuthorizationFlow key.
+     * @param flow  AuthorizationFlow.
+     */
+    public void register(String state, AuthorizationFlow flow) {
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, AuthorizationFlow>> iterator = mFlows.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, AuthorizationFlow> entry = iterator.next();
+                if (entry.getValue().isExpired()
+                        || mFlows.size() >= Constants.MAX_AUTHORIZATION_FLOWS) {
+                    iterator.remove();
+                    deleteFile(entry.getKey());
+                }
+            }
+            mRemovedStates.remove(state);
+            mFlows.put(state, flow);
+        }
+        mDiskExecutor.execute(() -> writeFile(state, flow));
+    }
+
+    /**
+     * Returns the flow of the state. A flow which is not in memory is read from the disk on a
+     * background thread, and the returned future then completes on the main thread.
+     *
+     * @param state AuthorizationFlow key.
+     * @return Future of the AuthorizationFlow, which completes with null if there is no flow of the
+     * state or it has expired.
+     */
+    public SdkFuture<AuthorizationFlow> get(String state) {
+
+        AuthorizationFlow flow;
+        synchronized (this) {
+            flow = mFlows.get(state);
+        }
+        if (flow != null) {
+            return SdkFuture.completed(checkExpiry(state, flow));
+        }
+        SdkFuture<AuthorizationFlow> future = new SdkFuture<>();
+        // Reads run on the same serial executor as the deletes, so a removed flow is not read back.
+        mDiskExecutor.execute(() -> {
+            AuthorizationFlow storedFlow = readFile(state);
+            if (storedFlow != null) {
+                synchronized (this) {
+                    if (mRemovedStates.contains(state)) {
+                        storedFlow = null;
+                    } else {
+                        Log.d(LOG_TAG, "Resuming an authorization flow of a previous process");
+                        mFlows.put(state, storedFlow);
+                    }
+                }
+            }
+            AuthorizationFlow result = storedFlow;
+            SdkExecutor.getMainThreadExecutor()
+                    .execute(() -> future.complete(checkExpiry(state, result)));
+        });
+        return future;
+    }
+
+    /**
+     * Removes the flow of the state once it is completed.
+     *
+     * @param state AuthorizationFlow key.
+     */
+    public void remove(String state) {
+
+        synchronized (this) {
+            mFlows.remove(state);
+            deleteFile(state);
+        }
+    }
+
+    /**
+     * Marks the flow of the state as cancelled, so that the token exchange is not made when the
+     * browser returns. The stored copy of the flow is deleted, so a flow resumed by a new process
+     * is unknown, and cancelled as well.
+     *
+     * @param state AuthorizationFlow key.
+     */
+    public void cancel(String state) {
+
+        synchronized (this) {
+            AuthorizationFlow flow = mFlows.get(state);
+            if (flow != null) {
+                flow.markCancelled();
+                deleteFile(state);
+            }
+        }
+    }
+
+    private AuthorizationFlow checkExpiry(String state, AuthorizationFlow flow) {
+
+        if (flow != null && flow.isExpired()) {
+            remove(state);
+            return null;
+        }
+        return flow;
+    }
+
+    // Called while holding the lock of the registry.
+    private void deleteFile(String state) {
+
+        mRemovedStates.add(state);
+        mDiskExecutor.execute(() -> {
+            File file = getFile(state);
+            if (file.exists() && !file.delete()) {
+                Log.w(LOG_TAG, "Unable to delete a stored authorization flow");
+            }
+            synchronized (this) {
+                mRemovedStates.remove(state);
+            }
+        });
+    }
+
+    private void deleteExpiredFiles() {
+
+        File[] files = getDirectory().listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > Constants.AUTHORIZATION_FLOW_EXPIRY && !file.delete()) {
+                Log.w(LOG_TAG, "Unable to delete an expired authorization flow");
+            }
+        }
+    }
+
+    private void writeFile(String state, AuthorizationFlow flow) {
+
+        File directory = getDirectory();
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(LOG_TAG, "Unable to create the authorization flow directory");
+            return;
+        }
+        File file = getFile(state);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(state);
+            flow.writeTo(out);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Error while storing the authorization flow", e);
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Log.w(LOG_TAG, "Unable to store the authorization flow");
+        }
+    }
+
+    private AuthorizationFlow readFile(String state) {
+
+        File file = getFile(state);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readByte() == FORMAT_VERSION && state.equals(in.readUTF())) {
+                return AuthorizationFlow.readFrom(in);
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Error while reading the stored authorization flow", e);
+        }
+        return null;
+    }
+
+    private File getDirectory() {
+
+        return new File(mContext.getCacheDir(), Constants.AUTHORIZATION_FLOW_DIRECTORY);
+    }
+
+    private File getFile(String state) {
+
+        return new File(getDirectory(), Util.hash(state));
+    }
+}
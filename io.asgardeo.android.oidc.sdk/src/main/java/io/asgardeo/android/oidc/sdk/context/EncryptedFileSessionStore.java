@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.context;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Log;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.exception.ClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * SessionStore which keeps the AuthenticationContext in a single file of the application files
+ * directory, encrypted with AES/GCM using a key held in the Android Keystore. The key never leaves
+ * the Keystore, so the file cannot be decrypted on another device or after the application data is
+ * copied.
+ *
+ * The AuthenticationContext is written in a compact binary form instead of JSON, so that restoring
+ * it on a cold start takes a single file read and a single decryption. The Android Keystore does
+ * not support AES keys below API level 23, where this store does not persist anything.
+ */
+public class EncryptedFileSessionStore implements SessionStore {
+
+    private static final String LOG_TAG = "EncryptedFileSessionStore";
+    private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_SIZE = 256;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int FORMAT_VERSION = 2;
+
+    private final File mFile;
+    private final String mKeyAlias;
+    private SecretKey mSecretKey;
+
+    public EncryptedFileSessionStore(Context context) {
+
+        this(context, Constants.SESSION_FILE_NAME, Constants.SESSION_KEY_ALIAS);
+    }
+
+    public EncryptedFileSessionStore(Context context, String fileName, String keyAlias) {
+
+        this.mFile = new File(context.getApplicationContext().getFilesDir(), fileName);
+        this.mKeyAlias = keyAlias;
+    }
+
+    /**
+     * Returns whether the session can be stored on this device.
+     *
+     * @return True if the Android Keystore supports AES keys.
+     */
+    public static boolean isSupported() {
+
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    @Override
+    public synchronized void save(AuthenticationContext authenticationContext)
+            throws ClientException {
+
+        if (!isSupported()) {
+            throw new ClientException(
+                    "Encrypted session store is not supported below API level 23");
+        }
+        try {
+            ByteArrayOutputStream plainText = new ByteArrayOutputStream();
+            authenticationContext.writeTo(new DataOutputStream(plainText));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, getSecretKey());
+            byte[] iv = cipher.getIV();
+            byte[] cipherText = cipher.doFinal(plainText.toByteArray());
+
+            File tempFile = new File(mFile.getPath() + ".tmp");
+            try (BufferedSink sink = Okio.buffer(Okio.sink(tempFile))) {
+                sink.writeByte(FORMAT_VERSION);
+                sink.writeByte(iv.length);
+                sink.write(iv);
+                sink.write(cipherText);
+            }
+            if (!tempFile.renameTo(mFile)) {
+                throw new ClientException("Unable to store the session");
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new ClientException("Error while storing the session", e);
+        }
+    }
+
+    @Override
+    public synchronized AuthenticationContext restore() {
+
+        if (!isSupported() || !mFile.exists()) {
+            return null;
+        }
+        byte[] data;
+        try (BufferedSource source = Okio.buffer(Okio.source(mFile))) {
+            data = source.readByteArray();
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Error while reading the stored session", e);
+            return null;
+        }
+        try {
+            if (data.length < 2 || data[0] != FORMAT_VERSION) {
+                throw new IOException("Unsupported session format");
+            }
+            int ivLength = data[1];
+            int offset = 2 + ivLength;
+            if (ivLength <= 0 || offset > data.length) {
+                throw new IOException("Malformed session");
+            }
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, getSecretKey(),
+                    new GCMParameterSpec(GCM_TAG_LENGTH, data, 2, ivLength));
+            byte[] plainText = cipher.doFinal(data, offset, data.length - offset);
+            return AuthenticationContext
+                    .readFrom(new DataInputStream(new ByteArrayInputStream(plainText)));
+        } catch (IOException | GeneralSecurityException e) {
+            // The file is corrupt or the key was invalidated. The session cannot be restored.
+            Log.w(LOG_TAG, "Error while restoring the stored session", e);
+            deleteFile();
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+
+        deleteFile();
+    }
+
+    private void deleteFile() {
+
+        if (mFile.exists() && !mFile.delete()) {
+            Log.w(LOG_TAG, "Unable to delete the stored session");
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private SecretKey getSecretKey() throws GeneralSecurityException, IOException {
+
+        if (mSecretKey == null) {
+            KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
+            keyStore.load(null);
+            KeyStore.Entry entry = keyStore.getEntry(mKeyAlias, null);
+            if (entry instanceof KeyStore.SecretKeyEntry) {
+                mSecretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+            } else {
+                KeyGenerator keyGenerator = KeyGenerator
+                        .getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEY_STORE);
+                keyGenerator.init(new KeyGenParameterSpec.Builder(mKeyAlias,
+                        KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                        .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                        .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                        .setKeySize(KEY_SIZE)
+                        .build());
+                mSecretKey = keyGenerator.generateKey();
+            }
+        }
+        return mSecretKey;
+    }
+}
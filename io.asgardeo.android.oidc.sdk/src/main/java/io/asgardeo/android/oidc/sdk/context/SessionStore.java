@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.context;
+
+import io.asgardeo.android.oidc.sdk.exception.ClientException;
+
+/**
+ * Persists the AuthenticationContext across process restarts, so that a returning user does not
+ * have to go through the browser login again. The methods may access the disk and must not be
+ * called on the main thread.
+ */
+public interface SessionStore {
+
+    /**
+     * Stores the AuthenticationContext, replacing the stored one if any.
+     *
+     * @param authenticationContext AuthenticationContext.
+     * @throws ClientException If the AuthenticationContext cannot be stored.
+     */
+    void save(AuthenticationContext authenticationContext) throws ClientException;
+
+    /**
+     * Returns the stored AuthenticationContext.
+     *
+     * @return AuthenticationContext or null if there is no stored session.
+     */
+    AuthenticationContext restore();
+
+    /**
+     * Removes the stored AuthenticationContext.
+     */
+    void clear();
+}
@@ -32,6 +32,7 @@ public class ClientException extends Exception {
 
     public ClientException(String msg, Exception e) {
         this.message = msg;
+        initCause(e);
     }
 
     public String getMessage() {
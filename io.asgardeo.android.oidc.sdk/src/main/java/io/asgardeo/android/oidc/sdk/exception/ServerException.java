@@ -31,6 +31,8 @@ public class ServerException extends Exception {
     }
 
     public ServerException(String msg, Exception e) {
+        this.message = msg;
+        initCause(e);
     }
 
     public String getMessage() {
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import android.util.Log;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.SignedJWT;
+import io.asgardeo.android.oidc.sdk.async.SdkTask;
+import io.asgardeo.android.oidc.sdk.exception.ClientException;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+
+import java.text.ParseException;
+
+/**
+ * Validates the signature of the ID token against the keys published in the JWKS endpoint of the
+ * Identity Server. The keys are resolved through the {@link JWKSCache}, so that the JWKS endpoint
+ * is not called when the signing key is already known.
+ */
+public class IDTokenValidationHandler extends SdkTask<Void, Void> {
+
+    private static final String LOG_TAG = "IDTokenValidation";
+
+    private String mIdToken;
+    private String mJwksUri;
+    private String mIssuer;
+    private JWKSCache mJWKSCache;
+    private RequestOptions mRequestOptions = RequestOptions.getDefault();
+    private IDTokenValidationCallback mCallback;
+    private Exception mException;
+
+    public IDTokenValidationHandler(String idToken, String jwksUri, String issuer,
+            JWKSCache jwksCache, IDTokenValidationCallback callback) {
+
+        this.mIdToken = idToken;
+        this.mJwksUri = jwksUri;
+        this.mIssuer = issuer;
+        this.mJWKSCache = jwksCache;
+        this.mCallback = callback;
+    }
+
+    /**
+     * Sets the timeouts and the maximum response size of the call to the JWKS endpoint, and
+     * abandons the validation after the request timeout. This must be called before the task is
+     * executed.
+     *
+     * @param requestOptions RequestOptions.
+     * @return This handler.
+     */
+    public IDTokenValidationHandler setRequestOptions(RequestOptions requestOptions) {
+
+        this.mRequestOptions = requestOptions;
+        setTimeout(requestOptions.getRequestTimeout());
+        return this;
+    }
+
+    @Override
+    protected Void doInBackground() {
+
+        try {
+            validate();
+        } catch (ClientException e) {
+            Log.e(LOG_TAG, "ID token validation failed", e);
+            mException = e;
+        } catch (ServerException e) {
+            Log.e(LOG_TAG, "Error while validating the ID token", e);
+            mException = e;
+        }
+        return null;
+    }
+
+    /**
+     * Validates the signature and the issuer of the ID token.
+     *
+     * @throws ClientException if the ID token is not valid.
+     * @throws ServerException if the signing keys cannot be retrieved.
+     */
+    private void validate() throws ClientException, ServerException {
+
+        SignedJWT idToken;
+        try {
+            idToken = SignedJWT.parse(mIdToken);
+        } catch (ParseException e) {
+            throw new ClientException("ID token is not a signed JWT", e);
+        }
+        String keyId = idToken.getHeader().getKeyID();
+        JWK key = mJWKSCache.getKey(mJwksUri, keyId, mRequestOptions);
+        if (key == null) {
+            throw new ClientException("No key found for the ID token signing key " + keyId);
+        }
+        try {
+            if (!idToken.verify(createVerifier(key))) {
+                throw new ClientException("ID token signature is not valid");
+            }
+            if (mIssuer != null && !mIssuer.equals(idToken.getJWTClaimsSet().getIssuer())) {
+                throw new ClientException("ID token is not issued by " + mIssuer);
+            }
+        } catch (JOSEException e) {
+            throw new ClientException("Error while verifying the ID token signature", e);
+        } catch (ParseException e) {
+            throw new ClientException("Error while reading the ID token claims", e);
+        }
+        Log.d(LOG_TAG, "ID token signature is valid");
+    }
+
+    private JWSVerifier createVerifier(JWK key) throws JOSEException, ClientException {
+
+        if (key instanceof RSAKey) {
+            return new RSASSAVerifier((RSAKey) key);
+        }
+        if (key instanceof ECKey) {
+            return new ECDSAVerifier((ECKey) key);
+        }
+        throw new ClientException("Unsupported ID token signing key type " + key.getKeyType());
+    }
+
+    protected void onPostExecute(Void result) {
+
+        mCallback.onIDTokenValidationCompleted(mException);
+    }
+
+    @Override
+    protected void onCancelled() {
+
+        if (isTimedOut()) {
+            mCallback.onIDTokenValidationCompleted(
+                    new ServerException("ID token validation timed out"));
+        }
+    }
+
+    /**
+     * Handle the ID token validation callback.
+     */
+    public interface IDTokenValidationCallback {
+
+        /**
+         * Handle the flow after the ID token is validated.
+         *
+         * @param e Exception if the ID token is not valid, or null.
+         */
+        void onIDTokenValidationCompleted(Exception e);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the requests that are in flight, so that concurrent callers of an identical
+ * request attach to the pending result instead of calling the Identity Server again.
+ *
+ * @param <T> Type of the callers waiting for a request.
+ */
+class InFlightRequestRegistry<T> {
+
+    private final Map<String, List<T>> mRequests = new HashMap<>();
+    private final Map<String, T> mLeaders = new HashMap<>();
+
+    /**
+     * Registers the caller for the request identified by the key.
+     *
+     * @param key    Request key.
+     * @param waiter Caller waiting for the result.
+     * @return true if there is no such request in flight and the caller should start it.
+     */
+    synchronized boolean register(String key, T waiter) {
+
+        List<T> waiters = mRequests.get(key);
+        if (waiters != null) {
+            waiters.add(waiter);
+            return false;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(waiter);
+        mRequests.put(key, waiters);
+        mLeaders.put(key, waiter);
+        return true;
+    }
+
+    /**
+     * Removes the caller from the callers waiting for the request. When no caller is left, the
+     * request is no longer in flight and the caller which started it is returned, so that it can
+     * be aborted.
+     *
+     * @param key    Request key.
+     * @param waiter Caller waiting for the result.
+     * @return Caller which started the request if it has no callers left, or null.
+     */
+    synchronized T detach(String key, T waiter) {
+
+        List<T> waiters = mRequests.get(key);
+        if (waiters == null || !waiters.remove(waiter) || !waiters.isEmpty()) {
+            return null;
+        }
+        mRequests.remove(key);
+        return mLeaders.remove(key);
+    }
+
+    /**
+     * Returns the callers registered so far while keeping the request in flight. Callers
+     * registering afterwards will wait for the completion of the request.
+     *
+     * @param key Request key.
+     * @return Callers waiting for the request.
+     */
+    synchronized List<T> drain(String key) {
+
+        List<T> waiters = mRequests.get(key);
+        if (waiters == null) {
+            return Collections.emptyList();
+        }
+        mRequests.put(key, new ArrayList<T>());
+        return waiters;
+    }
+
+    /**
+     * Marks the request as completed and returns the callers waiting for it.
+     *
+     * @param key Request key.
+     * @return Callers waiting for the request.
+     */
+    synchronized List<T> complete(String key) {
+
+        List<T> waiters = mRequests.remove(key);
+        mLeaders.remove(key);
+        if (waiters == null) {
+            return Collections.emptyList();
+        }
+        return waiters;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.http.HttpRequest;
+import io.asgardeo.android.oidc.sdk.http.HttpResponse;
+import io.asgardeo.android.oidc.sdk.http.HttpTransportProvider;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+import io.asgardeo.android.oidc.sdk.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory and disk backed cache of the JSON Web Key Sets published by the Identity Server,
+ * indexed by the key id. The key set is fetched again only when a token refers to an unknown key
+ * id, at most once per {@link Constants#JWKS_MIN_REFETCH_INTERVAL}, so that key rotations are
+ * picked up without calling the JWKS endpoint on every login.
+ */
+public class JWKSCache {
+
+    private static final String LOG_TAG = "JWKSCache";
+    private static JWKSCache sInstance;
+
+    private final Map<String, KeySet> mKeySets = new HashMap<>();
+    private final File mCacheDirectory;
+
+    private JWKSCache(Context context) {
+
+        this.mCacheDirectory = new File(context.getCacheDir(), Constants.JWKS_CACHE_DIRECTORY);
+    }
+
+    /**
+     * Returns the process wide instance of the JWKSCache.
+     *
+     * @param context Context.
+     * @return JWKSCache instance.
+     */
+    public static synchronized JWKSCache getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new JWKSCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the key with the given key id from the key set of the JWKS endpoint. This may read
+     * from the disk or call the JWKS endpoint and must not be called on the main thread.
+     *
+     * @param jwksUri JWKS endpoint.
+     * @param keyId   Key id, or null if the token does not specify one.
+     * @return JWK or null if there is no such key.
+     * @throws ServerException
+     */
+    public JWK getKey(String jwksUri, String keyId) throws ServerException {
+
+        return getKey(jwksUri, keyId, RequestOptions.getDefault());
+    }
+
+    /**
+     * Returns the key with the given key id in the same way as {@link #getKey(String, String)},
+     * calling the JWKS endpoint with the given timeouts and maximum response size.
+     *
+     * @param jwksUri        JWKS endpoint.
+     * @param keyId          Key id, or null if the token does not specify one.
+     * @param requestOptions RequestOptions of the call to the JWKS endpoint.
+     * @return JWK or null if there is no such key.
+     * @throws ServerException
+     */
+    public JWK getKey(String jwksUri, String keyId, RequestOptions requestOptions)
+            throws ServerException {
+
+        KeySet keySet = getKeySet(jwksUri);
+        synchronized (keySet) {
+            if (keySet.mKeys == null) {
+                keySet.mKeys = readKeys(jwksUri);
+            }
+            JWK key = keySet.find(keyId);
+            if (key == null && keySet.canRefetch()) {
+                Log.d(LOG_TAG, "Key " + keyId + " is not cached, fetching the keys of " + jwksUri);
+                keySet.mFetchedAt = System.currentTimeMillis();
+                keySet.mKeys = fetchKeys(jwksUri, requestOptions);
+                key = keySet.find(keyId);
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Drops the in-memory key set of the JWKS endpoint. The keys are kept on the disk and read
+     * again when a token of the endpoint is validated.
+     *
+     * @param jwksUri JWKS endpoint.
+     */
+    public synchronized void evict(String jwksUri) {
+
+        mKeySets.remove(jwksUri);
+    }
+
+    private synchronized KeySet getKeySet(String jwksUri) {
+
+        KeySet keySet = mKeySets.get(jwksUri);
+        if (keySet == null) {
+            keySet = new KeySet();
+            mKeySets.put(jwksUri, keySet);
+        }
+        return keySet;
+    }
+
+    private JWKSet fetchKeys(String jwksUri, RequestOptions requestOptions)
+            throws ServerException {
+
+        try {
+            String response;
+            try (HttpResponse httpResponse = HttpTransportProvider.getTransport()
+                    .execute(new HttpRequest(jwksUri).setTimeouts(
+                            requestOptions.getConnectTimeout(), requestOptions.getReadTimeout()))) {
+                if (httpResponse.getStatusCode() != HttpURLConnection.HTTP_OK) {
+                    throw new ServerException("Server returns " + httpResponse.getStatusCode()
+                            + " when calling JWKS endpoint");
+                }
+                response = Okio.buffer(Okio.source(
+                        httpResponse.getBody(requestOptions.getMaxResponseSize())))
+                        .readString(Charset.forName("UTF-8"));
+            }
+            JWKSet keys = JWKSet.parse(response);
+            writeKeys(jwksUri, keys);
+            return keys;
+        } catch (IOException e) {
+            throw new ServerException("Error while calling the JWKS endpoint. ", e);
+        } catch (ParseException e) {
+            throw new ServerException("Error while parsing the JWKS response. ", e);
+        }
+    }
+
+    private JWKSet readKeys(String jwksUri) {
+
+        File file = getFile(jwksUri);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            return JWKSet.parse(source.readString(Charset.forName("UTF-8")));
+        } catch (IOException | ParseException e) {
+            Log.w(LOG_TAG, "Error while reading the cached JWKS of " + jwksUri, e);
+            return null;
+        }
+    }
+
+    private void writeKeys(String jwksUri, JWKSet keys) {
+
+        if (!mCacheDirectory.exists() && !mCacheDirectory.mkdirs()) {
+            Log.w(LOG_TAG, "Unable to create the JWKS cache directory");
+            return;
+        }
+        File file = getFile(jwksUri);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(tempFile))) {
+            // Only the public keys are written.
+            sink.writeString(keys.toString(), Charset.forName("UTF-8"));
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Error while writing the JWKS to the cache", e);
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Log.w(LOG_TAG, "Unable to store the JWKS in the cache");
+        }
+    }
+
+    private File getFile(String jwksUri) {
+
+        return new File(mCacheDirectory, Util.hash(jwksUri));
+    }
+
+    /**
+     * Keys of a single JWKS endpoint.
+     */
+    private static class KeySet {
+
+        private JWKSet mKeys;
+        private long mFetchedAt;
+
+        private JWK find(String keyId) {
+
+            if (mKeys == null) {
+                return null;
+            }
+            if (keyId != null) {
+                return mKeys.getKeyByKeyId(keyId);
+            }
+            List<JWK> keys = mKeys.getKeys();
+            return keys.size() == 1 ? keys.get(0) : null;
+        }
+
+        private boolean canRefetch() {
+
+            return System.currentTimeMillis() - mFetchedAt >= Constants.JWKS_MIN_REFETCH_INTERVAL;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import android.content.Context;
+import android.util.Log;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import org.json.JSONException;
+import org.json.JSONObject;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryCacheEntry;
+import io.asgardeo.android.oidc.sdk.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Disk backed cache of OIDC discovery documents, keyed by the discovery endpoint. Entries are
+ * kept in memory once read and are written to the application cache directory so that a new
+ * process can start the login flow without calling the discovery endpoint.
+ */
+public class OIDCDiscoveryCache {
+
+    private static final String LOG_TAG = "OIDCDiscoveryCache";
+    private static OIDCDiscoveryCache sInstance;
+
+    private final Map<String, OIDCDiscoveryCacheEntry> mEntries = new ConcurrentHashMap<>();
+    private final File mCacheDirectory;
+
+    private OIDCDiscoveryCache(Context context) {
+
+        this.mCacheDirectory = new File(context.getCacheDir(), Constants.DISCOVERY_CACHE_DIRECTORY);
+    }
+
+    /**
+     * Returns the process wide instance of the OIDCDiscoveryCache.
+     *
+     * @param context Context.
+     * @return OIDCDiscoveryCache instance.
+     */
+    public static synchronized OIDCDiscoveryCache getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new OIDCDiscoveryCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the cached entry of the discovery endpoint. This may read from the disk and must not
+     * be called on the main thread.
+     *
+     * @param discoveryEndpoint Discovery endpoint.
+     * @return OIDCDiscoveryCacheEntry or null if there is no usable entry.
+     */
+    public OIDCDiscoveryCacheEntry get(String discoveryEndpoint) {
+
+        OIDCDiscoveryCacheEntry entry = mEntries.get(discoveryEndpoint);
+        if (entry == null) {
+            entry = readEntry(discoveryEndpoint);
+            if (entry != null) {
+                mEntries.put(discoveryEndpoint, entry);
+            }
+        }
+        if (entry != null && !entry.isUsable()) {
+            remove(discoveryEndpoint);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the in-memory entry of the discovery endpoint, without reading the disk. The entry
+     * may be stale.
+     *
+     * @param discoveryEndpoint Discovery endpoint.
+     * @return OIDCDiscoveryCacheEntry or null if it is not in memory.
+     */
+    public OIDCDiscoveryCacheEntry peek(String discoveryEndpoint) {
+
+        return mEntries.get(discoveryEndpoint);
+    }
+
+    /**
+     * Stores the entry in memory and on the disk.
+     *
+     * @param entry OIDCDiscoveryCacheEntry.
+     */
+    public void put(OIDCDiscoveryCacheEntry entry) {
+
+        mEntries.put(entry.getDiscoveryEndpoint(), entry);
+        writeEntry(entry);
+    }
+
+    /**
+     * Drops the in-memory entry of the discovery endpoint. The entry is kept on the disk and read
+     * again by the next {@link #get(String)}.
+     *
+     * @param discoveryEndpoint Discovery endpoint.
+     */
+    public void evict(String discoveryEndpoint) {
+
+        mEntries.remove(discoveryEndpoint);
+    }
+
+    /**
+     * Removes the entry of the discovery endpoint.
+     *
+     * @param discoveryEndpoint Discovery endpoint.
+     */
+    public void remove(String discoveryEndpoint) {
+
+        mEntries.remove(discoveryEndpoint);
+        File file = getFile(discoveryEndpoint);
+        if (file.exists() && !file.delete()) {
+            Log.w(LOG_TAG, "Unable to delete the cached discovery response of "
+                    + discoveryEndpoint);
+        }
+    }
+
+    private OIDCDiscoveryCacheEntry readEntry(String discoveryEndpoint) {
+
+        File file = getFile(discoveryEndpoint);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            OIDCDiscoveryCacheEntry entry = OIDCDiscoveryCacheEntry.fromJson(
+                    new JSONObject(source.readString(Charset.forName("UTF-8"))));
+            if (discoveryEndpoint.equals(entry.getDiscoveryEndpoint())) {
+                return entry;
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(LOG_TAG, "Error while reading the cached discovery response", e);
+        }
+        return null;
+    }
+
+    private void writeEntry(OIDCDiscoveryCacheEntry entry) {
+
+        if (!mCacheDirectory.exists() && !mCacheDirectory.mkdirs()) {
+            Log.w(LOG_TAG, "Unable to create the discovery cache directory");
+            return;
+        }
+        File file = getFile(entry.getDiscoveryEndpoint());
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(tempFile))) {
+            sink.writeString(entry.toJson().toString(), Charset.forName("UTF-8"));
+        } catch (IOException | JSONException e) {
+            Log.w(LOG_TAG, "Error while writing the discovery response to the cache", e);
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Log.w(LOG_TAG, "Unable to store the discovery response in the cache");
+        }
+    }
+
+    private File getFile(String discoveryEndpoint) {
+
+        return new File(mCacheDirectory, Util.hash(discoveryEndpoint));
+    }
+}
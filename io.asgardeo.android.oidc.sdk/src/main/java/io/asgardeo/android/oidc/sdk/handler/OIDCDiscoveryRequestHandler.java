@@ -18,48 +18,105 @@
 
 package io.asgardeo.android.oidc.sdk.handler;
 
-import android.os.AsyncTask;
+import android.util.JsonReader;
 import android.util.Log;
 
-import okio.Okio;
-import org.json.JSONException;
-import org.json.JSONObject;
+import io.asgardeo.android.oidc.sdk.async.SdkTask;
 import io.asgardeo.android.oidc.sdk.exception.ClientException;
 import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.http.CircuitBreakerOpenException;
+import io.asgardeo.android.oidc.sdk.http.HttpRequest;
+import io.asgardeo.android.oidc.sdk.http.HttpResponse;
+import io.asgardeo.android.oidc.sdk.http.HttpTransportProvider;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryCacheEntry;
 import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Handles the OIDC Discovery request flow to Identity Server.
+ * Handles the OIDC Discovery request flow to Identity Server. When a {@link OIDCDiscoveryCache} is
+ * given, a fresh cached response is returned without calling the Identity Server and a stale one
+ * is returned immediately while it is revalidated with a conditional request.
  */
-public class OIDCDiscoveryRequestHandler extends AsyncTask<Void, Void, OIDCDiscoveryResponse> {
+public class OIDCDiscoveryRequestHandler extends SdkTask<OIDCDiscoveryResponse,
+        OIDCDiscoveryResponse> {
 
     private String mDiscoveryEndpoint;
+    private OIDCDiscoveryCache mCache;
     private OIDCDiscoveryRespCallback mCallback;
     private static final String LOG_TAG = "OIDCDiscoveryRequest";
+    private static final InFlightRequestRegistry<OIDCDiscoveryRequestHandler> sInFlightRequests =
+            new InFlightRequestRegistry<>();
     private Exception mException;
+    private OIDCDiscoveryResponse mDeliveredResponse;
+    private boolean mCoalesced;
+    private volatile boolean mDetached;
+    private volatile HttpRequest mRequest;
+    private RequestOptions mRequestOptions = RequestOptions.getDefault();
 
-    public OIDCDiscoveryRequestHandler(String discoveryEndpoint, OIDCDiscoveryRespCallback callback) {
+    public OIDCDiscoveryRequestHandler(String discoveryEndpoint,
+            OIDCDiscoveryRespCallback callback) {
+
+        this(discoveryEndpoint, null, callback);
+    }
+
+    public OIDCDiscoveryRequestHandler(String discoveryEndpoint, OIDCDiscoveryCache cache,
+            OIDCDiscoveryRespCallback callback) {
 
         this.mDiscoveryEndpoint = discoveryEndpoint;
+        this.mCache = cache;
         this.mCallback = callback;
 
     }
 
+    /**
+     * Sets the timeouts and the maximum response size of the discovery request. This must be
+     * called before the request is executed.
+     *
+     * @param requestOptions RequestOptions.
+     * @return This handler.
+     */
+    public OIDCDiscoveryRequestHandler setRequestOptions(RequestOptions requestOptions) {
+
+        this.mRequestOptions = requestOptions;
+        setTimeout(requestOptions.getRequestTimeout());
+        return this;
+    }
+
     @Override
-    protected OIDCDiscoveryResponse doInBackground(Void... voids) {
+    protected OIDCDiscoveryResponse doInBackground() {
 
         OIDCDiscoveryResponse response = null;
         try {
-            response = callDiscoveryUri();
+            OIDCDiscoveryCacheEntry entry = mCache != null ? mCache.get(mDiscoveryEndpoint) : null;
+            if (entry != null) {
+                response = entry.getResponse();
+                if (entry.isFresh()) {
+                    Log.d(LOG_TAG, "Serving cached discovery response of " + mDiscoveryEndpoint);
+                    return response;
+                }
+                // Serve the stale response right away and revalidate it in the background.
+                publishProgress(response);
+            }
+            response = callDiscoveryUri(entry);
         } catch (ServerException e) {
-            Log.e(LOG_TAG, "Error while calling OIDC discovery endpoint", e);
+            if (response != null && e.getCause() instanceof CircuitBreakerOpenException) {
+                Log.w(LOG_TAG, "Identity Server is unavailable, serving cached discovery "
+                        + "response of " + mDiscoveryEndpoint);
+            } else {
+                Log.e(LOG_TAG, "Error while calling OIDC discovery endpoint", e);
+            }
+            if (mException == null) {
+                mException = e;
+            }
         } catch (ClientException e) {
             Log.e(LOG_TAG, "Error while calling OIDC discovery endpoint", e);
         }
@@ -69,32 +126,55 @@ public class OIDCDiscoveryRequestHandler extends AsyncTask<Void, Void, OIDCDisco
     /**
      * Call discovery endpoint of Identity Server.
      *
+     * @param cacheEntry Cached entry to be revalidated, or null.
      * @return OAuthDiscovery.
      * @throws ServerException
      * @throws ClientException
      */
-    private OIDCDiscoveryResponse callDiscoveryUri() throws ServerException, ClientException {
-
-        HttpURLConnection conn;
-        URL discoveryEndpoint;
+    private OIDCDiscoveryResponse callDiscoveryUri(OIDCDiscoveryCacheEntry cacheEntry)
+            throws ServerException, ClientException {
 
-        try {
-            Log.d(LOG_TAG, "Call discovery service of identity server via: " + mDiscoveryEndpoint);
-            discoveryEndpoint = new URL(mDiscoveryEndpoint);
-            conn = (HttpURLConnection) discoveryEndpoint.openConnection();
-            conn.setRequestMethod(Constants.HTTP_GET);
-            conn.setDoInput(true);
-            String response = Okio.buffer(Okio.source(conn.getInputStream()))
-                    .readString(Charset.forName("UTF-8"));
-            conn.disconnect();
-            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                Log.e(LOG_TAG, "Server returns" + conn.getResponseCode() + "when "
+        Log.d(LOG_TAG, "Call discovery service of identity server via: " + mDiscoveryEndpoint);
+        HttpRequest request = new HttpRequest(mDiscoveryEndpoint)
+                .setTimeouts(mRequestOptions.getConnectTimeout(), mRequestOptions.getReadTimeout());
+        mRequest = request;
+        if (cacheEntry != null) {
+            if (cacheEntry.getETag() != null) {
+                request.setHeader(Constants.IF_NONE_MATCH, cacheEntry.getETag());
+            }
+            if (cacheEntry.getLastModified() != null) {
+                request.setHeader(Constants.IF_MODIFIED_SINCE, cacheEntry.getLastModified());
+            }
+        }
+        try (HttpResponse httpResponse = HttpTransportProvider.getTransport().execute(request)) {
+            int responseCode = httpResponse.getStatusCode();
+            String cacheControl = httpResponse.getHeader(Constants.CACHE_CONTROL);
+            String eTag = httpResponse.getHeader(Constants.ETAG);
+            String lastModified = httpResponse.getHeader(Constants.LAST_MODIFIED);
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cacheEntry != null) {
+                Log.d(LOG_TAG, "Cached discovery response of " + mDiscoveryEndpoint
+                        + " is not modified");
+                mCache.put(cacheEntry.revalidate(eTag, lastModified,
+                        OIDCDiscoveryCacheEntry.getExpiryTime(cacheControl)));
+                return cacheEntry.getResponse();
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                Log.e(LOG_TAG, "Server returns" + responseCode + "when "
                         + "calling discovery endpoint");
-                throw new ServerException("Server returns" + conn.getResponseCode() + "when "
+                throw new ServerException("Server returns" + responseCode + "when "
                         + "calling discovery endpoint");
             }
-            JSONObject jsonResponse = new JSONObject(response);
-            return new OIDCDiscoveryResponse(jsonResponse);
+            OIDCDiscoveryResponse discoveryResponse;
+            try (JsonReader reader = new JsonReader(new InputStreamReader(
+                    httpResponse.getBody(mRequestOptions.getMaxResponseSize()),
+                    Charset.forName("UTF-8")))) {
+                discoveryResponse = OIDCDiscoveryResponse.fromJson(reader);
+            }
+            if (mCache != null && OIDCDiscoveryCacheEntry.isStorable(cacheControl)) {
+                mCache.put(new OIDCDiscoveryCacheEntry(mDiscoveryEndpoint, discoveryResponse, eTag,
+                        lastModified, OIDCDiscoveryCacheEntry.getExpiryTime(cacheControl)));
+            }
+            return discoveryResponse;
 
         } catch (MalformedURLException exception) {
             mException = exception;
@@ -102,19 +182,120 @@ public class OIDCDiscoveryRequestHandler extends AsyncTask<Void, Void, OIDCDisco
         } catch (IOException exception) {
             mException = exception;
             throw new ServerException("Error while calling the discovery endpoint. ", exception);
-        } catch (JSONException exception) {
+        } catch (IllegalStateException exception) {
             mException = exception;
-            throw new ServerException("Error while parsing the discovery response as JSON. ", exception);
+            throw new ServerException("Error while parsing the discovery response as JSON. ",
+                    exception);
+        }
+    }
+
+    @Override
+    protected void onProgressUpdate(OIDCDiscoveryResponse response) {
+
+        for (OIDCDiscoveryRequestHandler waiter : takeWaiters(false)) {
+            deliverTo(waiter, () -> waiter.deliver(null, response));
         }
+        mDeliveredResponse = response;
     }
 
+    @Override
     protected void onPostExecute(OIDCDiscoveryResponse response) {
 
-        if (mException != null) {
-            mCallback.onDiscoveryRequestCompleted(mException, null);
+        // When the cached response has already been delivered, callers that attached during the
+        // revalidation receive the latest response even if the revalidation failed.
+        Exception exception = mDeliveredResponse != null && response != null ? null : mException;
+        for (OIDCDiscoveryRequestHandler waiter : takeWaiters(true)) {
+            if (exception != null) {
+                deliverTo(waiter, () -> waiter.deliver(exception, null));
+            } else {
+                deliverTo(waiter, () -> waiter.deliver(null, response));
+            }
+        }
+    }
+
+    @Override
+    protected void onCancelled() {
+
+        if (!isTimedOut()) {
+            // Cancelled by the callers, who do not expect a callback.
+            return;
+        }
+        // Callers receive the cached response if one was served while it was being revalidated.
+        OIDCDiscoveryResponse response = mDeliveredResponse;
+        ServerException exception = new ServerException("Discovery request to "
+                + mDiscoveryEndpoint + " timed out");
+        for (OIDCDiscoveryRequestHandler waiter : takeWaiters(true)) {
+            if (response != null) {
+                deliverTo(waiter, () -> waiter.deliver(null, response));
+            } else {
+                deliverTo(waiter, () -> waiter.deliver(exception, null));
+            }
+        }
+    }
+
+    @Override
+    protected void onAbort() {
+
+        HttpRequest request = mRequest;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Cancels the discovery request. When the request is shared with other callers through
+     * {@link #submit()}, only the callback of this handler is detached, and the request is
+     * aborted once no caller is left waiting for it.
+     *
+     * @return False if the request was already cancelled.
+     */
+    @Override
+    public boolean cancel() {
+
+        if (!mCoalesced) {
+            return super.cancel();
+        }
+        if (mDetached) {
+            return false;
+        }
+        mDetached = true;
+        OIDCDiscoveryRequestHandler leader = sInFlightRequests.detach(mDiscoveryEndpoint, this);
+        if (leader != null) {
+            leader.abort(false);
+        }
+        return true;
+    }
+
+    private void deliver(Exception exception, OIDCDiscoveryResponse response) {
+
+        if (!mDetached) {
+            mCallback.onDiscoveryRequestCompleted(exception, response);
+        }
+    }
+
+    /**
+     * Executes the discovery request, or attaches the callback to an identical request which is
+     * already in flight. All callbacks are invoked when that request completes.
+     */
+    public void submit() {
+
+        mCoalesced = true;
+        if (sInFlightRequests.register(mDiscoveryEndpoint, this)) {
+            execute();
         } else {
-            mCallback.onDiscoveryRequestCompleted(null, response);
+            Log.d(LOG_TAG, "Attached to the discovery request in flight for " + mDiscoveryEndpoint);
+        }
+    }
+
+    private List<OIDCDiscoveryRequestHandler> takeWaiters(boolean completed) {
+
+        if (!mCoalesced) {
+            return mDeliveredResponse != null
+                    ? Collections.<OIDCDiscoveryRequestHandler>emptyList()
+                    : Collections.singletonList(this);
         }
+        return completed ? sInFlightRequests.complete(mDiscoveryEndpoint)
+                : sInFlightRequests.drain(mDiscoveryEndpoint);
     }
 
     /**
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import android.util.Log;
+
+import io.asgardeo.android.oidc.sdk.async.SdkExecutor;
+import io.asgardeo.android.oidc.sdk.async.SdkTask;
+import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
+import io.asgardeo.android.oidc.sdk.context.SessionStore;
+import io.asgardeo.android.oidc.sdk.exception.ClientException;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the SessionStore operations off the main thread. Saving and clearing the session are
+ * executed one after the other, in the order they are requested, so that a session cleared on
+ * logout is never overwritten by a save which was requested before.
+ */
+public class SessionHandler extends SdkTask<Void, AuthenticationContext> {
+
+    private static final String LOG_TAG = "SessionHandler";
+    private static final Executor sSerialExecutor =
+            SdkExecutor.newSerialExecutor(SdkExecutor.Priority.BACKGROUND);
+
+    private SessionStore mSessionStore;
+    private SessionRestoreCallback mCallback;
+
+    private SessionHandler(SessionStore sessionStore, SessionRestoreCallback callback) {
+
+        this.mSessionStore = sessionStore;
+        this.mCallback = callback;
+    }
+
+    /**
+     * Restores the stored AuthenticationContext and returns it to the callback on the main thread.
+     *
+     * @param sessionStore SessionStore.
+     * @param callback     SessionRestoreCallback.
+     */
+    public static void restore(SessionStore sessionStore, SessionRestoreCallback callback) {
+
+        new SessionHandler(sessionStore, callback).execute();
+    }
+
+    /**
+     * Stores the AuthenticationContext in the background.
+     *
+     * @param sessionStore          SessionStore.
+     * @param authenticationContext AuthenticationContext.
+     */
+    public static void save(SessionStore sessionStore,
+            AuthenticationContext authenticationContext) {
+
+        sSerialExecutor.execute(() -> {
+            try {
+                sessionStore.save(authenticationContext);
+                Log.d(LOG_TAG, "Session is stored");
+            } catch (ClientException e) {
+                Log.e(LOG_TAG, "Error while storing the session", e);
+            }
+        });
+    }
+
+    /**
+     * Removes the stored AuthenticationContext in the background.
+     *
+     * @param sessionStore SessionStore.
+     */
+    public static void clear(SessionStore sessionStore) {
+
+        sSerialExecutor.execute(sessionStore::clear);
+    }
+
+    @Override
+    protected AuthenticationContext doInBackground() {
+
+        return mSessionStore.restore();
+    }
+
+    @Override
+    protected void onPostExecute(AuthenticationContext authenticationContext) {
+
+        mCallback.onSessionRestored(authenticationContext);
+    }
+
+    /**
+     * Handle the session restore callback.
+     */
+    public interface SessionRestoreCallback {
+
+        /**
+         * Handle the flow after the stored session is read.
+         *
+         * @param authenticationContext Stored AuthenticationContext, or null if there is no
+         *                              stored session.
+         */
+        void onSessionRestored(AuthenticationContext authenticationContext);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.handler;
+
+import android.util.Log;
+
+import net.openid.appauth.AuthorizationException;
+import net.openid.appauth.AuthorizationService;
+import net.openid.appauth.AuthorizationServiceConfiguration;
+import net.openid.appauth.GrantTypeValues;
+import net.openid.appauth.TokenRequest;
+import net.openid.appauth.TokenResponse;
+import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
+
+import java.util.List;
+
+/**
+ * Handles the refresh token grant. The OAuth2TokenResponse of the AuthenticationContext is updated
+ * in place with the refreshed tokens. Concurrent refreshes of the same refresh token are coalesced
+ * into a single request, since the Identity Server may rotate the refresh token and reject the
+ * duplicates. The leader updates its OAuth2TokenResponse before it leaves the in-flight registry,
+ * so a caller which checks the access token with {@link #setMinValidity(long)} either attaches to
+ * the refresh or finds the refreshed access token, and never sends the rotated refresh token again.
+ */
+public class TokenRefreshRequestHandler {
+
+    private static final String LOG_TAG = "TokenRefreshRequest";
+    private static final InFlightRequestRegistry<TokenRefreshRequestHandler> sInFlightRequests =
+            new InFlightRequestRegistry<>();
+    // Orders the validity check and the registration of a refresh against the token update.
+    private static final Object sRefreshLock = new Object();
+
+    private AuthorizationService mAuthorizationService;
+    private AuthenticationContext mAuthenticationContext;
+    private String mClientId;
+    private TokenRefreshCallback mCallback;
+    private String mRequestKey;
+    private long mMinValidity = -1;
+
+    public TokenRefreshRequestHandler(AuthorizationService authorizationService,
+            AuthenticationContext authenticationContext, String clientId,
+            TokenRefreshCallback callback) {
+
+        this.mAuthorizationService = authorizationService;
+        this.mAuthenticationContext = authenticationContext;
+        this.mClientId = clientId;
+        this.mCallback = callback;
+    }
+
+    /**
+     * Skips the refresh if the access token is valid for at least the given time when the request
+     * is submitted, for example because a concurrent refresh has just completed. By default the
+     * access token is always refreshed.
+     *
+     * @param minValidity Minimum validity of the access token in milliseconds.
+     * @return This handler.
+     */
+    public TokenRefreshRequestHandler setMinValidity(long minValidity) {
+
+        this.mMinValidity = minValidity;
+        return this;
+    }
+
+    /**
+     * Sends the refresh token grant to the token endpoint, or attaches the callback to the refresh
+     * of the same refresh token which is already in flight.
+     */
+    public void submit() {
+
+        OAuth2TokenResponse oAuth2TokenResponse = mAuthenticationContext.getOAuth2TokenResponse();
+        OIDCDiscoveryResponse discoveryResponse = mAuthenticationContext.getOIDCDiscoveryResponse();
+        if (oAuth2TokenResponse == null || oAuth2TokenResponse.getRefreshToken() == null) {
+            mCallback.onTokenRefreshCompleted(null,
+                    new ServerException("There is no refresh token to refresh the access token"));
+            return;
+        }
+        if (discoveryResponse == null) {
+            mCallback.onTokenRefreshCompleted(null, new ServerException(
+                    "DiscoveryResponse is null. Re-initiate the authentication"));
+            return;
+        }
+        String refreshToken;
+        synchronized (sRefreshLock) {
+            if (mMinValidity >= 0
+                    && oAuth2TokenResponse.getValidAccessToken(mMinValidity) != null) {
+                refreshToken = null;
+            } else {
+                refreshToken = oAuth2TokenResponse.getRefreshToken();
+                mRequestKey = discoveryResponse.getTokenEndpoint() + "#" + refreshToken;
+                if (!sInFlightRequests.register(mRequestKey, this)) {
+                    Log.d(LOG_TAG, "Attached to the token refresh in flight");
+                    return;
+                }
+            }
+        }
+        if (refreshToken == null) {
+            Log.d(LOG_TAG, "Access token is already refreshed");
+            mCallback.onTokenRefreshCompleted(oAuth2TokenResponse, null);
+            return;
+        }
+        TokenRequest request = new TokenRequest.Builder(
+                new AuthorizationServiceConfiguration(discoveryResponse.getAuthorizationEndpoint(),
+                        discoveryResponse.getTokenEndpoint()), mClientId)
+                .setGrantType(GrantTypeValues.REFRESH_TOKEN)
+                .setRefreshToken(refreshToken)
+                .build();
+        Log.d(LOG_TAG, "Refreshing the access token for service provider :" + mClientId);
+        mAuthorizationService.performTokenRequest(request, this::handleTokenResponse);
+    }
+
+    private void handleTokenResponse(TokenResponse tokenResponse,
+            AuthorizationException exception) {
+
+        boolean refreshed = exception == null && tokenResponse != null;
+        List<TokenRefreshRequestHandler> waiters;
+        synchronized (sRefreshLock) {
+            if (refreshed) {
+                update(mAuthenticationContext.getOAuth2TokenResponse(), tokenResponse);
+            }
+            waiters = sInFlightRequests.complete(mRequestKey);
+        }
+        if (!refreshed) {
+            Log.e(LOG_TAG, "Error while refreshing the access token", exception);
+            ServerException serverException =
+                    new ServerException("Error while refreshing the access token", exception);
+            for (TokenRefreshRequestHandler waiter : waiters) {
+                waiter.mCallback.onTokenRefreshCompleted(null, serverException);
+            }
+            return;
+        }
+        Log.d(LOG_TAG, "Access token is refreshed");
+        for (TokenRefreshRequestHandler waiter : waiters) {
+            OAuth2TokenResponse oAuth2TokenResponse =
+                    waiter.mAuthenticationContext.getOAuth2TokenResponse();
+            if (waiter != this) {
+                update(oAuth2TokenResponse, tokenResponse);
+            }
+            waiter.mCallback.onTokenRefreshCompleted(oAuth2TokenResponse, null);
+        }
+    }
+
+    private static void update(OAuth2TokenResponse oAuth2TokenResponse,
+            TokenResponse tokenResponse) {
+
+        // The access token is set before its expiration time, see
+        // OAuth2TokenResponse#getValidAccessToken(long).
+        oAuth2TokenResponse.setAccessToken(tokenResponse.accessToken);
+        oAuth2TokenResponse.setAccessTokenExpirationTime(tokenResponse.accessTokenExpirationTime);
+        oAuth2TokenResponse.setTokenType(tokenResponse.tokenType);
+        if (tokenResponse.refreshToken != null) {
+            // The Identity Server rotated the refresh token.
+            oAuth2TokenResponse.setRefreshToken(tokenResponse.refreshToken);
+        }
+        if (tokenResponse.idToken != null) {
+            oAuth2TokenResponse.setIdToken(tokenResponse.idToken);
+        }
+    }
+
+    /**
+     * Handle the token refresh callback.
+     */
+    public interface TokenRefreshCallback {
+
+        /**
+         * Handle the flow after the token refresh request is completed.
+         *
+         * @param oAuth2TokenResponse Refreshed OAuth2TokenResponse.
+         * @param ex                  ServerException if the refresh failed.
+         */
+        void onTokenRefreshCompleted(OAuth2TokenResponse oAuth2TokenResponse, ServerException ex);
+    }
+
+    /**
+     * Handle the valid access token callback.
+     */
+    public interface AccessTokenCallback {
+
+        /**
+         * Handle the flow once a valid access token is available.
+         *
+         * @param accessToken Valid access token.
+         * @param ex          ServerException if no valid access token could be obtained.
+         */
+        void onAccessTokenReceived(String accessToken, ServerException ex);
+    }
+}
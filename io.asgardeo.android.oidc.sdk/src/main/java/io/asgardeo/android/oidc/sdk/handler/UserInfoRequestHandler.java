@@ -18,29 +18,32 @@
 
 package io.asgardeo.android.oidc.sdk.handler;
 
-import android.os.AsyncTask;
+import android.util.JsonReader;
 import android.util.Log;
-import okio.Okio;
-import org.json.JSONException;
-import org.json.JSONObject;
+import io.asgardeo.android.oidc.sdk.async.SdkTask;
 import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
 import io.asgardeo.android.oidc.sdk.exception.ClientException;
 import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.http.HttpRequest;
+import io.asgardeo.android.oidc.sdk.http.HttpResponse;
+import io.asgardeo.android.oidc.sdk.http.HttpTransportProvider;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
 import io.asgardeo.android.oidc.sdk.model.User;
 import io.asgardeo.android.oidc.sdk.model.UserInfoResponse;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
-import io.asgardeo.android.oidc.sdk.util.Util;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Handles the Userinfo request flow to Identity Server.
  */
-public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoResponse> {
+public class UserInfoRequestHandler extends SdkTask<Void, UserInfoResponse> {
 
     private UserInfoResponseCallback mCallback;
     private ServerException mServerException;
@@ -48,6 +51,12 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
     private AuthenticationContext mAuthenticationContext;
 
     private static final String LOG_TAG = "UserInfoRequest";
+    private static final InFlightRequestRegistry<UserInfoRequestHandler> sInFlightRequests =
+            new InFlightRequestRegistry<>();
+    private String mRequestKey;
+    private volatile boolean mDetached;
+    private volatile HttpRequest mRequest;
+    private RequestOptions mRequestOptions = RequestOptions.getDefault();
 
     public UserInfoRequestHandler(AuthenticationContext authenticationContext,
             UserInfoResponseCallback callback) {
@@ -57,8 +66,22 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
 
     }
 
+    /**
+     * Sets the timeouts and the maximum response size of the userinfo request. This must be
+     * called before the request is executed.
+     *
+     * @param requestOptions RequestOptions.
+     * @return This handler.
+     */
+    public UserInfoRequestHandler setRequestOptions(RequestOptions requestOptions) {
+
+        this.mRequestOptions = requestOptions;
+        setTimeout(requestOptions.getRequestTimeout());
+        return this;
+    }
+
     @Override
-    protected UserInfoResponse doInBackground(Void... voids) {
+    protected UserInfoResponse doInBackground() {
 
         if (mAuthenticationContext.getOAuth2TokenResponse() != null
                 && mAuthenticationContext.getUserInfoResponse() != null) {
@@ -73,21 +96,27 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
                 }
                 String accessToken = mAuthenticationContext.getOAuth2TokenResponse()
                         .getAccessToken();
-                URL userInfoEndpoint = new URL(
-                        mAuthenticationContext.getOIDCDiscoveryResponse().getUserInfoEndpoint()
-                                .toString());
-
-                HttpURLConnection conn = (HttpURLConnection) userInfoEndpoint.openConnection();
-                conn.setRequestProperty(Constants.AUTHORIZATION, Constants.BEARER + accessToken);
-                conn.setInstanceFollowRedirects(false);
-                String response = Okio.buffer(Okio.source(conn.getInputStream()))
-                        .readString(Charset.forName("UTF-8"));
+                String userInfoEndpoint = mAuthenticationContext.getOIDCDiscoveryResponse()
+                        .getUserInfoEndpoint().toString();
                 Log.d(LOG_TAG, "Call userinfo endpoint: " + userInfoEndpoint);
-
-                JSONObject json = new JSONObject(response);
-                mUserInfoResponse = new UserInfoResponse(json);
-                mAuthenticationContext.setUserInfoResponse(mUserInfoResponse);
-                setUser(mAuthenticationContext.getUser(), mUserInfoResponse);
+                HttpRequest request = new HttpRequest(userInfoEndpoint)
+                        .setHeader(Constants.AUTHORIZATION, Constants.BEARER + accessToken)
+                        .setFollowRedirects(false)
+                        .setTimeouts(mRequestOptions.getConnectTimeout(),
+                                mRequestOptions.getReadTimeout());
+                mRequest = request;
+                try (HttpResponse httpResponse = HttpTransportProvider.getTransport()
+                        .execute(request)) {
+                    if (httpResponse.getStatusCode() != HttpURLConnection.HTTP_OK) {
+                        throw new IOException("Server returns " + httpResponse.getStatusCode()
+                                + " when calling userinfo endpoint");
+                    }
+                    try (JsonReader reader = new JsonReader(new InputStreamReader(
+                            httpResponse.getBody(mRequestOptions.getMaxResponseSize()),
+                            Charset.forName("UTF-8")))) {
+                        mUserInfoResponse = UserInfoResponse.fromJson(reader);
+                    }
+                }
 
             } catch (MalformedURLException e) {
                 String error = "Error while calling userinfo endpoint";
@@ -97,7 +126,7 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
                 String error = "Error while calling userinfo endpoint";
                 Log.e(LOG_TAG, error);
                 mServerException = new ServerException(error, e);
-            } catch (JSONException e) {
+            } catch (IllegalStateException e) {
                 String error = "Error while getting response from userinfo endpoint";
                 Log.e(LOG_TAG, error);
                 mServerException = new ServerException(error, e);
@@ -111,29 +140,126 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
         return mUserInfoResponse;
     }
 
+    @Override
     protected void onPostExecute(UserInfoResponse response) {
 
-        if (mServerException != null) {
-            mCallback.onUserInfoRequestCompleted(null, mServerException);
+        List<UserInfoRequestHandler> waiters = mRequestKey != null
+                ? sInFlightRequests.complete(mRequestKey) : Collections.singletonList(this);
+        for (UserInfoRequestHandler waiter : waiters) {
+            deliverTo(waiter, () -> waiter.deliver(mUserInfoResponse, mServerException));
+        }
+    }
+
+    @Override
+    protected void onCancelled() {
+
+        if (!isTimedOut()) {
+            // Cancelled by the callers, who do not expect a callback.
+            return;
+        }
+        List<UserInfoRequestHandler> waiters = mRequestKey != null
+                ? sInFlightRequests.complete(mRequestKey) : Collections.singletonList(this);
+        ServerException exception = new ServerException("Userinfo request timed out");
+        for (UserInfoRequestHandler waiter : waiters) {
+            deliverTo(waiter, () -> waiter.deliver(null, exception));
+        }
+    }
+
+    @Override
+    protected void onAbort() {
+
+        HttpRequest request = mRequest;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Cancels the userinfo request. When the request is shared with other callers through
+     * {@link #submit()}, only the callback of this handler is detached, and the request is
+     * aborted once no caller is left waiting for it.
+     *
+     * @return False if the request was already cancelled.
+     */
+    @Override
+    public boolean cancel() {
+
+        if (mRequestKey == null) {
+            return super.cancel();
+        }
+        if (mDetached) {
+            return false;
+        }
+        mDetached = true;
+        UserInfoRequestHandler leader = sInFlightRequests.detach(mRequestKey, this);
+        if (leader != null) {
+            leader.abort(false);
+        }
+        return true;
+    }
+
+    /**
+     * Executes the userinfo request, or attaches the callback to an identical request which is
+     * already in flight for the same access token. All callbacks are invoked when that request
+     * completes.
+     */
+    public void submit() {
+
+        if (mAuthenticationContext.getUserInfoResponse() != null
+                || mAuthenticationContext.getOAuth2TokenResponse() == null
+                || mAuthenticationContext.getOIDCDiscoveryResponse() == null) {
+            execute();
+            return;
+        }
+        mRequestKey = mAuthenticationContext.getOIDCDiscoveryResponse().getUserInfoEndpoint() + "#"
+                + mAuthenticationContext.getOAuth2TokenResponse().getAccessToken();
+        if (sInFlightRequests.register(mRequestKey, this)) {
+            execute();
         } else {
-            mCallback.onUserInfoRequestCompleted(mUserInfoResponse, null);
+            Log.d(LOG_TAG, "Attached to the userinfo request in flight");
         }
     }
 
+    /**
+     * Delivers the result of the userinfo request to the callback of this handler.
+     *
+     * @param userInfoResponse UserInfoResponse.
+     * @param exception        ServerException.
+     */
+    private void deliver(UserInfoResponse userInfoResponse, ServerException exception) {
+
+        if (mDetached) {
+            return;
+        }
+        if (exception != null) {
+            mCallback.onUserInfoRequestCompleted(null, exception);
+            return;
+        }
+        if (userInfoResponse != null
+                && mAuthenticationContext.getUserInfoResponse() != userInfoResponse) {
+            // The AuthenticationContext is updated on the callback thread, since the application
+            // may already be using it when the userinfo response is fetched after the login.
+            mAuthenticationContext.setUserInfoResponse(userInfoResponse);
+            setUser(mAuthenticationContext.getUser(), userInfoResponse);
+        }
+        mCallback.onUserInfoRequestCompleted(userInfoResponse, null);
+    }
+
     /**
      * Set user object into AuthenticationContext.
      *
      * @param user             User.
      * @param userInfoResponse UserInfoResponse.
-     * @throws JSONException
      */
-    private void setUser(User user, UserInfoResponse userInfoResponse) throws JSONException {
+    private void setUser(User user, UserInfoResponse userInfoResponse) {
 
         if (user == null) {
             user = new User();
+            mAuthenticationContext.setUser(user);
         }
         user.setUserName(userInfoResponse.getSubject());
-        user.setAttributes(Util.toMap(userInfoResponse.getUserInfoProperties()));
+        // The read-only claims are shared with the user instead of being copied.
+        user.setAttributes(userInfoResponse.getClaims());
     }
 
     /**
@@ -148,4 +274,19 @@ public class UserInfoRequestHandler extends AsyncTask<Void, Void, UserInfoRespon
          */
         void onUserInfoRequestCompleted(UserInfoResponse userInfoResponse, ServerException ex);
     }
+
+    /**
+     * Interface to handle the userinfo response which is fetched after the login is completed.
+     */
+    public interface UserInfoUpdateListener {
+
+        /**
+         * Handle the AuthenticationContext once its UserInfoResponse and User are updated from the
+         * userinfo response.
+         *
+         * @param authenticationContext AuthenticationContext.
+         * @param ex                    ServerException, or null if the userinfo request succeeded.
+         */
+        void onUserInfoUpdated(AuthenticationContext authenticationContext, ServerException ex);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.util.Random;
+
+/**
+ * Circuit breaker of the requests to a single host. After a number of consecutive failures the
+ * breaker opens and requests fail fast for a while. Then a single trial request is let through,
+ * which closes the breaker if it succeeds, or opens it again for twice as long if it fails.
+ */
+class CircuitBreaker {
+
+    /**
+     * Outcome of {@link #allowRequest()}.
+     */
+    enum Permit {
+        DENIED,
+        ALLOWED,
+        // The request is the single trial of an open breaker, and must report its outcome.
+        TRIAL
+    }
+
+    private final Random mRandom;
+    private int mFailures;
+    private long mOpenDuration = Constants.CIRCUIT_BREAKER_OPEN_DURATION;
+    private long mOpenUntil;
+    private boolean mTrialInFlight;
+
+    CircuitBreaker(Random random) {
+
+        this.mRandom = random;
+    }
+
+    /**
+     * Returns whether a request may be sent to the host, and whether it is the trial request of an
+     * open breaker.
+     *
+     * @return DENIED if the breaker is open, TRIAL if the caller owns the trial.
+     */
+    synchronized Permit allowRequest() {
+
+        if (mFailures < Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
+            return Permit.ALLOWED;
+        }
+        if (mTrialInFlight || currentTimeMillis() < mOpenUntil) {
+            return Permit.DENIED;
+        }
+        mTrialInFlight = true;
+        return Permit.TRIAL;
+    }
+
+    /**
+     * Records a request which reached the host.
+     */
+    synchronized void onSuccess() {
+
+        mFailures = 0;
+        mOpenDuration = Constants.CIRCUIT_BREAKER_OPEN_DURATION;
+        mTrialInFlight = false;
+    }
+
+    /**
+     * Records a request which failed with a network error or a server error.
+     *
+     * @param trial Whether the request was allowed as the trial.
+     */
+    synchronized void onFailure(boolean trial) {
+
+        if (trial && mTrialInFlight) {
+            mTrialInFlight = false;
+            mOpenDuration =
+                    Math.min(mOpenDuration * 2, Constants.CIRCUIT_BREAKER_MAX_OPEN_DURATION);
+        } else if (++mFailures < Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
+            return;
+        }
+        // Clients which lost the host at the same time should not all probe it at the same time.
+        long jitter = (long) (mRandom.nextDouble() * mOpenDuration / 2);
+        mOpenUntil = currentTimeMillis() + mOpenDuration / 2 + jitter;
+    }
+
+    /**
+     * Records a request which ended without an outcome, e.g. when it is cancelled. The trial is
+     * released if the request was the trial, so that another request can probe the host.
+     *
+     * @param trial Whether the request was allowed as the trial.
+     */
+    synchronized void onAbandoned(boolean trial) {
+
+        if (trial) {
+            mTrialInFlight = false;
+        }
+    }
+
+    long currentTimeMillis() {
+
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import android.text.TextUtils;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpTransport on top of {@link HttpURLConnection}. The platform implementation keeps a pool of
+ * keep-alive connections and a TLS session cache shared by the process. Connections are returned
+ * to that pool only when the response body is read and closed, so this transport never calls
+ * {@link HttpURLConnection#disconnect()} on a successful response, unless the request is
+ * cancelled.
+ *
+ * HttpURLConnection does not negotiate HTTP/2. Applications which need it should register their
+ * own client through {@link HttpTransportProvider#setTransport(HttpTransport)}.
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+    private final int mConnectTimeout;
+    private final int mReadTimeout;
+
+    public DefaultHttpTransport() {
+
+        this(Constants.DEFAULT_CONNECT_TIMEOUT, Constants.DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Creates a transport with the given timeouts.
+     *
+     * @param connectTimeout Connect timeout in milliseconds.
+     * @param readTimeout    Read timeout in milliseconds.
+     */
+    public DefaultHttpTransport(int connectTimeout, int readTimeout) {
+
+        this.mConnectTimeout = connectTimeout;
+        this.mReadTimeout = readTimeout;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+
+        if (request.isCancelled()) {
+            throw new IOException("Request is cancelled");
+        }
+        HttpURLConnection conn = (HttpURLConnection) new URL(request.getUrl()).openConnection();
+        // Disconnecting closes the socket and fails the call blocked on it. This is done on a new
+        // thread since closing a TLS connection writes to the socket, and the request may be
+        // cancelled on the main thread.
+        request.setCancelAction(() -> new Thread(conn::disconnect, "asgardeo-sdk-cancel").start());
+        try {
+            conn.setRequestMethod(request.getMethod());
+            conn.setConnectTimeout(request.getConnectTimeout() >= 0
+                    ? (int) request.getConnectTimeout() : mConnectTimeout);
+            conn.setReadTimeout(request.getReadTimeout() >= 0
+                    ? (int) request.getReadTimeout() : mReadTimeout);
+            // HttpURLConnection follows redirects only within the same protocol.
+            conn.setInstanceFollowRedirects(request.isFollowRedirects());
+            conn.setDoInput(true);
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                conn.setRequestProperty(header.getKey(), header.getValue());
+            }
+            int statusCode = conn.getResponseCode();
+            Map<String, String> headers = new HashMap<>();
+            for (Map.Entry<String, List<String>> header : conn.getHeaderFields().entrySet()) {
+                // The status line is returned with a null key.
+                if (header.getKey() != null) {
+                    headers.put(header.getKey(), TextUtils.join(", ", header.getValue()));
+                }
+            }
+            InputStream body = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? conn.getErrorStream() : conn.getInputStream();
+            return new HttpResponse(statusCode, headers, body);
+        } catch (IOException | RuntimeException e) {
+            conn.disconnect();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP request made by the SDK to the Identity Server.
+ */
+public class HttpRequest {
+
+    private final String mMethod;
+    private final String mUrl;
+    private final Map<String, String> mHeaders = new LinkedHashMap<>();
+    private long mConnectTimeout = -1;
+    private long mReadTimeout = -1;
+    private boolean mFollowRedirects = true;
+    private boolean mCancelled;
+    private Runnable mCancelAction;
+
+    /**
+     * Creates a GET request.
+     *
+     * @param url Request URL.
+     */
+    public HttpRequest(String url) {
+
+        this(Constants.HTTP_GET, url);
+    }
+
+    public HttpRequest(String method, String url) {
+
+        this.mMethod = method;
+        this.mUrl = url;
+    }
+
+    /**
+     * Sets a request header.
+     *
+     * @param name  Header name.
+     * @param value Header value.
+     * @return This request.
+     */
+    public HttpRequest setHeader(String name, String value) {
+
+        mHeaders.put(name, value);
+        return this;
+    }
+
+    /**
+     * Returns the request method.
+     *
+     * @return Request method.
+     */
+    public String getMethod() {
+
+        return mMethod;
+    }
+
+    /**
+     * Returns the request URL.
+     *
+     * @return Request URL.
+     */
+    public String getUrl() {
+
+        return mUrl;
+    }
+
+    /**
+     * Returns the request headers.
+     *
+     * @return Unmodifiable map of request headers.
+     */
+    public Map<String, String> getHeaders() {
+
+        return Collections.unmodifiableMap(mHeaders);
+    }
+
+    /**
+     * Sets the timeouts of the request.
+     *
+     * @param connectTimeout Connect timeout in milliseconds.
+     * @param readTimeout    Read timeout in milliseconds.
+     * @return This request.
+     */
+    public HttpRequest setTimeouts(long connectTimeout, long readTimeout) {
+
+        this.mConnectTimeout = connectTimeout;
+        this.mReadTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Returns the connect timeout of the request.
+     *
+     * @return Connect timeout in milliseconds, or -1 to use the timeout of the transport.
+     */
+    public long getConnectTimeout() {
+
+        return mConnectTimeout;
+    }
+
+    /**
+     * Returns the read timeout of the request.
+     *
+     * @return Read timeout in milliseconds, or -1 to use the timeout of the transport.
+     */
+    public long getReadTimeout() {
+
+        return mReadTimeout;
+    }
+
+    /**
+     * Sets whether the transport follows the redirects of the server. Redirects are followed by
+     * default. Requests which carry credentials should not follow them, so that the credentials
+     * are not sent to another location.
+     *
+     * @param followRedirects Whether to follow redirects.
+     * @return This request.
+     */
+    public HttpRequest setFollowRedirects(boolean followRedirects) {
+
+        this.mFollowRedirects = followRedirects;
+        return this;
+    }
+
+    /**
+     * Returns whether the transport follows the redirects of the server.
+     *
+     * @return True to follow redirects.
+     */
+    public boolean isFollowRedirects() {
+
+        return mFollowRedirects;
+    }
+
+    /**
+     * Cancels the request. The transport aborts the connection, so that a thread blocked on it
+     * fails with an IOException.
+     */
+    public void cancel() {
+
+        Runnable cancelAction;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            cancelAction = mCancelAction;
+        }
+        if (cancelAction != null) {
+            cancelAction.run();
+        }
+    }
+
+    /**
+     * Returns whether the request is cancelled.
+     *
+     * @return True if the request is cancelled.
+     */
+    public synchronized boolean isCancelled() {
+
+        return mCancelled;
+    }
+
+    /**
+     * Sets the action which aborts the connection of the request. Transports call this once they
+     * open the connection. The action is run right away if the request is already cancelled.
+     *
+     * @param cancelAction Action.
+     */
+    public void setCancelAction(Runnable cancelAction) {
+
+        synchronized (this) {
+            if (!mCancelled) {
+                mCancelAction = cancelAction;
+                return;
+            }
+        }
+        cancelAction.run();
+    }
+}
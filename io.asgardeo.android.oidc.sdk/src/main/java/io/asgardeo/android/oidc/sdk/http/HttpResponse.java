@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import okio.Okio;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HTTP response received from the Identity Server. The response must be closed once the body is
+ * read, so that the underlying connection can be reused.
+ */
+public class HttpResponse implements Closeable {
+
+    private final int mStatusCode;
+    private final Map<String, String> mHeaders;
+    private final InputStream mBody;
+
+    /**
+     * Creates a response.
+     *
+     * @param statusCode HTTP status code.
+     * @param headers    Response headers. Multiple values of a header are joined with commas.
+     * @param body       Response body, or null if there is no body.
+     */
+    public HttpResponse(int statusCode, Map<String, String> headers, InputStream body) {
+
+        this.mStatusCode = statusCode;
+        this.mHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.mHeaders.putAll(headers);
+        this.mBody = body;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     *
+     * @return HTTP status code.
+     */
+    public int getStatusCode() {
+
+        return mStatusCode;
+    }
+
+    /**
+     * Returns the value of a response header. Header names are case insensitive.
+     *
+     * @param name Header name.
+     * @return Header value or null.
+     */
+    public String getHeader(String name) {
+
+        return mHeaders.get(name);
+    }
+
+    /**
+     * Returns all the response headers.
+     *
+     * @return Unmodifiable map of response headers.
+     */
+    public Map<String, String> getHeaders() {
+
+        return Collections.unmodifiableMap(mHeaders);
+    }
+
+    /**
+     * Returns the response body.
+     *
+     * @return InputStream of the body, or null if there is no body.
+     */
+    public InputStream getBody() {
+
+        return mBody;
+    }
+
+    /**
+     * Returns the response body, which fails with an IOException once more than maxBytes are
+     * read from it. This protects the parsers from an unexpectedly large response.
+     *
+     * @param maxBytes Maximum number of bytes which can be read.
+     * @return InputStream of the body.
+     */
+    public InputStream getBody(long maxBytes) {
+
+        if (mBody == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return new LimitedInputStream(mBody, maxBytes);
+    }
+
+    /**
+     * Reads the whole response body as a UTF-8 string.
+     *
+     * @return Response body.
+     * @throws IOException
+     */
+    public String readBody() throws IOException {
+
+        if (mBody == null) {
+            return "";
+        }
+        return Okio.buffer(Okio.source(mBody)).readString(Charset.forName("UTF-8"));
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (mBody != null) {
+            mBody.close();
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long mRemaining;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+
+            super(in);
+            this.mRemaining = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            int value = super.read();
+            if (value != -1) {
+                consume(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                consume(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+
+            long skipped = super.skip(count);
+            consume(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+
+            return false;
+        }
+
+        private void consume(long count) throws IOException {
+
+            mRemaining -= count;
+            if (mRemaining < 0) {
+                throw new IOException("Response body exceeds the maximum size");
+            }
+        }
+    }
+}
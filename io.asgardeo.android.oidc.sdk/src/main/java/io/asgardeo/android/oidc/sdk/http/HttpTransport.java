@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import java.io.IOException;
+
+/**
+ * SPI for the HTTP client which the SDK uses to call the Identity Server. Applications which
+ * already keep a client with warm connections to the Identity Server, for example an OkHttp client
+ * with HTTP/2, can implement this interface on top of it and register it through
+ * {@link HttpTransportProvider#setTransport(HttpTransport)}, so that the SDK requests reuse those
+ * connections.
+ *
+ * Implementations must be thread safe. The SDK calls them on background threads only. They should
+ * apply the timeouts and the redirect policy of the HttpRequest and register a cancel action
+ * through {@link HttpRequest#setCancelAction(Runnable)}, so that abandoned requests release their
+ * connection.
+ */
+public interface HttpTransport {
+
+    /**
+     * Executes the request and returns the response once the status line and the headers are
+     * received. The caller reads the body and closes the response, which allows the implementation
+     * to reuse the connection.
+     *
+     * @param request HttpRequest.
+     * @return HttpResponse.
+     * @throws IOException If the request could not be executed.
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+}
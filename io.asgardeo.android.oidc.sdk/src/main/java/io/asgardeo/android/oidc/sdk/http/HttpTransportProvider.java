@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+/**
+ * Holds the HttpTransport used by all the requests the SDK makes to the Identity Server. The
+ * transport is wrapped in a {@link ResilientHttpTransport}, which retries failed requests and
+ * stops sending requests to a host which keeps failing.
+ */
+public class HttpTransportProvider {
+
+    private static volatile HttpTransport sTransport;
+
+    private HttpTransportProvider() {
+
+    }
+
+    /**
+     * Returns the registered HttpTransport, or the {@link DefaultHttpTransport} if the application
+     * did not register one, wrapped in a {@link ResilientHttpTransport}.
+     *
+     * @return HttpTransport.
+     */
+    public static HttpTransport getTransport() {
+
+        HttpTransport transport = sTransport;
+        if (transport == null) {
+            synchronized (HttpTransportProvider.class) {
+                if (sTransport == null) {
+                    sTransport = new ResilientHttpTransport(new DefaultHttpTransport());
+                }
+                transport = sTransport;
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Registers the HttpTransport used by the SDK. Applications should register it before the
+     * first login so that all the requests go through the same client.
+     *
+     * @param transport HttpTransport, or null to use the default transport.
+     */
+    public static void setTransport(HttpTransport transport) {
+
+        sTransport = transport != null ? new ResilientHttpTransport(transport) : null;
+    }
+}
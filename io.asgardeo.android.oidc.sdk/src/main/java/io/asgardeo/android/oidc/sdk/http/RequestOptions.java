@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import io.asgardeo.android.oidc.sdk.config.Configuration;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+/**
+ * Limits applied to the requests the SDK makes to the Identity Server.
+ */
+public class RequestOptions {
+
+    private static final RequestOptions DEFAULT = new RequestOptions(
+            Constants.DEFAULT_CONNECT_TIMEOUT, Constants.DEFAULT_READ_TIMEOUT,
+            Constants.DEFAULT_REQUEST_TIMEOUT, Constants.DEFAULT_MAX_RESPONSE_SIZE);
+
+    private final long mConnectTimeout;
+    private final long mReadTimeout;
+    private final long mRequestTimeout;
+    private final long mMaxResponseSize;
+
+    /**
+     * Creates the request options.
+     *
+     * @param connectTimeout  Connect timeout in milliseconds.
+     * @param readTimeout     Read timeout in milliseconds.
+     * @param requestTimeout  Time in milliseconds after which the request is abandoned, or 0 for
+     *                        no limit.
+     * @param maxResponseSize Maximum response size in bytes.
+     */
+    public RequestOptions(long connectTimeout, long readTimeout, long requestTimeout,
+            long maxResponseSize) {
+
+        this.mConnectTimeout = connectTimeout;
+        this.mReadTimeout = readTimeout;
+        this.mRequestTimeout = requestTimeout;
+        this.mMaxResponseSize = maxResponseSize;
+    }
+
+    /**
+     * Returns the request options of the Configuration.
+     *
+     * @param configuration Configuration.
+     * @return RequestOptions.
+     */
+    public static RequestOptions from(Configuration configuration) {
+
+        return new RequestOptions(configuration.getConnectTimeout(),
+                configuration.getReadTimeout(), configuration.getRequestTimeout(),
+                configuration.getMaxResponseSize());
+    }
+
+    /**
+     * Returns the default request options.
+     *
+     * @return RequestOptions.
+     */
+    public static RequestOptions getDefault() {
+
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the connect timeout.
+     *
+     * @return Connect timeout in milliseconds.
+     */
+    public long getConnectTimeout() {
+
+        return mConnectTimeout;
+    }
+
+    /**
+     * Returns the read timeout.
+     *
+     * @return Read timeout in milliseconds.
+     */
+    public long getReadTimeout() {
+
+        return mReadTimeout;
+    }
+
+    /**
+     * Returns the time after which the request is abandoned.
+     *
+     * @return Request timeout in milliseconds, or 0 for no limit.
+     */
+    public long getRequestTimeout() {
+
+        return mRequestTimeout;
+    }
+
+    /**
+     * Returns the maximum response size.
+     *
+     * @return Maximum response size in bytes.
+     */
+    public long getMaxResponseSize() {
+
+        return mMaxResponseSize;
+    }
+}
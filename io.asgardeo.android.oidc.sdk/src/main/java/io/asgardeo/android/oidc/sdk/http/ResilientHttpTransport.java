@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import android.net.Uri;
+import android.util.Log;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * HttpTransport which makes the requests of another transport resilient to a degraded Identity
+ * Server.
+ *
+ * GET requests which fail with an IOException, a 5xx or a 429 response are retried a bounded
+ * number of times, with an exponential backoff and full jitter, so that clients which failed at
+ * the same time do not retry at the same time. A Retry-After header of the server is honored.
+ *
+ * Each host has a {@link CircuitBreaker}. While it is open, requests fail fast with a
+ * {@link CircuitBreakerOpenException} without reaching the host.
+ */
+public class ResilientHttpTransport implements HttpTransport {
+
+    private static final String LOG_TAG = "ResilientHttpTransport";
+    private final HttpTransport mTransport;
+    private final int mMaxRetries;
+    private final Map<String, CircuitBreaker> mCircuitBreakers = new HashMap<>();
+    private final Random mRandom = new Random();
+
+    public ResilientHttpTransport(HttpTransport transport) {
+
+        this(transport, Constants.DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * Creates a transport which retries failed GET requests at most the given number of times.
+     *
+     * @param transport  HttpTransport which sends the requests.
+     * @param maxRetries Maximum number of retries of a request.
+     */
+    public ResilientHttpTransport(HttpTransport transport, int maxRetries) {
+
+        this.mTransport = transport;
+        this.mMaxRetries = maxRetries;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+
+        String host = Uri.parse(request.getUrl()).getHost();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        boolean retryable = Constants.HTTP_GET.equals(request.getMethod());
+        for (int attempt = 0; ; attempt++) {
+            CircuitBreaker.Permit permit = circuitBreaker.allowRequest();
+            if (permit == CircuitBreaker.Permit.DENIED) {
+                throw new CircuitBreakerOpenException(host);
+            }
+            boolean trial = permit == CircuitBreaker.Permit.TRIAL;
+            HttpResponse response;
+            try {
+                response = mTransport.execute(request);
+            } catch (IOException e) {
+                if (request.isCancelled()) {
+                    circuitBreaker.onAbandoned(trial);
+                    throw e;
+                }
+                circuitBreaker.onFailure(trial);
+                if (!retryable || attempt >= mMaxRetries) {
+                    throw e;
+                }
+                Log.d(LOG_TAG, "Retrying the request to " + host + " after " + e);
+                sleep(getBackoff(attempt, null), request);
+                continue;
+            } catch (RuntimeException | Error e) {
+                // A faulty transport must not keep the trial, or the host stays blocked.
+                circuitBreaker.onAbandoned(trial);
+                throw e;
+            }
+            int statusCode = response.getStatusCode();
+            if (statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure(trial);
+            }
+            if (!retryable || attempt >= mMaxRetries || !isRetryable(statusCode)) {
+                return response;
+            }
+            long backoff = getBackoff(attempt, response.getHeader(Constants.RETRY_AFTER));
+            if (backoff < 0) {
+                // The server asked to wait longer than the request can.
+                return response;
+            }
+            response.close();
+            Log.d(LOG_TAG, "Retrying the request to " + host + " after status " + statusCode);
+            sleep(backoff, request);
+        }
+    }
+
+    private synchronized CircuitBreaker getCircuitBreaker(String host) {
+
+        CircuitBreaker circuitBreaker = mCircuitBreakers.get(host);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(mRandom);
+            mCircuitBreakers.put(host, circuitBreaker);
+        }
+        return circuitBreaker;
+    }
+
+    private static boolean isRetryable(int statusCode) {
+
+        return statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                || statusCode == Constants.HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Returns the delay before the next attempt of a request.
+     *
+     * @param attempt    Number of the failed attempt, starting from zero.
+     * @param retryAfter Retry-After header of the failed response, or null.
+     * @return Delay in milliseconds, or -1 if the server asked for a longer delay than allowed.
+     */
+    private long getBackoff(int attempt, String retryAfter) {
+
+        long ceiling = Math.min(Constants.RETRY_MAX_DELAY, Constants.RETRY_BASE_DELAY << attempt);
+        long backoff = (long) (mRandom.nextDouble() * ceiling);
+        if (retryAfter != null) {
+            try {
+                long serverDelay = Long.parseLong(retryAfter.trim()) * 1000;
+                if (serverDelay > Constants.RETRY_MAX_DELAY) {
+                    return -1;
+                }
+                backoff = Math.max(backoff, serverDelay);
+            } catch (NumberFormatException e) {
+                // An HTTP date is not worth parsing for a delay this short.
+                Log.d(LOG_TAG, "Ignoring Retry-After header " + retryAfter);
+            }
+        }
+        return backoff;
+    }
+
+    private static void sleep(long delay, HttpRequest request) throws IOException {
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the request");
+        }
+        if (request.isCancelled()) {
+            throw new IOException("Request is cancelled");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.model;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, typed view of the claims of an ID token. The claims are read from the parsed token
+ * once, so none of the accessors parse the token again.
+ */
+public class IDTokenClaims {
+
+    private final String mSubject;
+    private final String mIssuer;
+    private final List<String> mAudience;
+    private final Date mIssueTime;
+    private final Date mExpiryTime;
+    private final Date mAuthTime;
+    private final String mNonce;
+    private final Map<String, Object> mClaims;
+
+    IDTokenClaims(JWTClaimsSet claimsSet) {
+
+        this.mSubject = claimsSet.getSubject();
+        this.mIssuer = claimsSet.getIssuer();
+        this.mAudience = Collections.unmodifiableList(claimsSet.getAudience());
+        this.mIssueTime = claimsSet.getIssueTime();
+        this.mExpiryTime = claimsSet.getExpirationTime();
+        this.mAuthTime = getDateClaim(claimsSet, "auth_time");
+        this.mNonce = getStringClaim(claimsSet, "nonce");
+        this.mClaims = Collections.unmodifiableMap(claimsSet.getClaims());
+    }
+
+    /**
+     * Returns subject(sub) claim of IdToken.
+     *
+     * @return subject.
+     */
+    public String getSubject() {
+
+        return mSubject;
+    }
+
+    /**
+     * Returns Issuer(iss) claim of IdToken.
+     *
+     * @return Issuer.
+     */
+    public String getIssuer() {
+
+        return mIssuer;
+    }
+
+    /**
+     * Returns Audience(aud) claim of IdToken.
+     *
+     * @return Audience.
+     */
+    public List<String> getAudience() {
+
+        return mAudience;
+    }
+
+    /**
+     * Returns IssueTime(iat) claim of IdToken.
+     *
+     * @return IssueTime.
+     */
+    public Date getIssueTime() {
+
+        return mIssueTime;
+    }
+
+    /**
+     * Returns ExpiryTime(exp) claim of IdToken.
+     *
+     * @return ExpiryTime.
+     */
+    public Date getExpiryTime() {
+
+        return mExpiryTime;
+    }
+
+    /**
+     * Returns AuthTime(auth_time) claim of IdToken.
+     *
+     * @return AuthTime or null.
+     */
+    public Date getAuthTime() {
+
+        return mAuthTime;
+    }
+
+    /**
+     * Returns Nonce(nonce) claim of IdToken.
+     *
+     * @return Nonce or null.
+     */
+    public String getNonce() {
+
+        return mNonce;
+    }
+
+    /**
+     * Returns Map of all claims.
+     *
+     * @return Unmodifiable map of all claims.
+     */
+    public Map<String, Object> getClaims() {
+
+        return mClaims;
+    }
+
+    /**
+     * Returns the claim value of the required claim.
+     *
+     * @param claim ClaimName.
+     * @return ClaimValue or null if the claim is not a string.
+     */
+    public String getClaim(String claim) {
+
+        Object value = mClaims.get(claim);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static Date getDateClaim(JWTClaimsSet claimsSet, String claim) {
+
+        try {
+            return claimsSet.getDateClaim(claim);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static String getStringClaim(JWTClaimsSet claimsSet, String claim) {
+
+        try {
+            return claimsSet.getStringClaim(claim);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
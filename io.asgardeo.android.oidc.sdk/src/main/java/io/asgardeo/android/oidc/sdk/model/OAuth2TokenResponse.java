@@ -20,7 +20,11 @@ package io.asgardeo.android.oidc.sdk.model;
 
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import io.asgardeo.android.oidc.sdk.util.Util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.Date;
@@ -34,12 +38,13 @@ public class OAuth2TokenResponse implements Serializable {
 
     private static final long serialVersionUID = 8967247348511678909L;
 
-    private String mTokenType;
-    private String mAccessToken;
-    private Long mAccessTokenExpirationTime;
-    private String mIdToken;
-    private String mRefreshToken;
-    private IDTokenResponse mIdTokenResponse;
+    // The tokens are volatile since they are refreshed in place while other threads read them.
+    private volatile String mTokenType;
+    private volatile String mAccessToken;
+    private volatile Long mAccessTokenExpirationTime;
+    private volatile String mIdToken;
+    private volatile String mRefreshToken;
+    private volatile IDTokenResponse mIdTokenResponse;
 
     /**
      * Set idToken.
@@ -124,6 +129,24 @@ public class OAuth2TokenResponse implements Serializable {
         return mAccessTokenExpirationTime;
     }
 
+    /**
+     * Returns the access token if it stays valid for at least the given time. The expiration time
+     * is read before the access token, and the token is refreshed by setting the access token
+     * before its expiration time, so an expiration time is never paired with an older token.
+     *
+     * @param minValidity Time in milliseconds the access token should stay valid.
+     * @return Access token, or null if it expires within the given time.
+     */
+    public String getValidAccessToken(long minValidity) {
+
+        Long expirationTime = mAccessTokenExpirationTime;
+        String accessToken = mAccessToken;
+        if (expirationTime != null && expirationTime - minValidity <= System.currentTimeMillis()) {
+            return null;
+        }
+        return accessToken;
+    }
+
     /**
      * Returns refresh token.
      *
@@ -144,12 +167,77 @@ public class OAuth2TokenResponse implements Serializable {
     }
 
     /**
-     * Stores IDToken response.
+     * Writes the tokens in the compact binary form used by the session store.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        Util.writeString(out, mTokenType);
+        Util.writeString(out, mAccessToken);
+        Util.writeString(out, mIdToken);
+        Util.writeString(out, mRefreshToken);
+        Long accessTokenExpirationTime = mAccessTokenExpirationTime;
+        out.writeBoolean(accessTokenExpirationTime != null);
+        if (accessTokenExpirationTime != null) {
+            out.writeLong(accessTokenExpirationTime);
+        }
+    }
+
+    /**
+     * Reads the tokens written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return OAuth2TokenResponse.
+     * @throws IOException
+     */
+    public static OAuth2TokenResponse readFrom(DataInput in) throws IOException {
+
+        OAuth2TokenResponse oAuth2TokenResponse = new OAuth2TokenResponse();
+        oAuth2TokenResponse.setTokenType(Util.readString(in));
+        oAuth2TokenResponse.setAccessToken(Util.readString(in));
+        String idToken = Util.readString(in);
+        if (idToken != null) {
+            oAuth2TokenResponse.setIdToken(idToken);
+        }
+        oAuth2TokenResponse.setRefreshToken(Util.readString(in));
+        if (in.readBoolean()) {
+            oAuth2TokenResponse.setAccessTokenExpirationTime(in.readLong());
+        }
+        return oAuth2TokenResponse;
+    }
+
+    /**
+     * Stores IDToken response. The ID token is parsed at most once and the parsed claims are reused
+     * by all the accessors.
      */
     public class IDTokenResponse implements Serializable {
 
         private static final long serialVersionUID = -3623225641770681283L;
 
+        // Claims parsed from the ID token of the enclosing response. They are not serialized and
+        // are parsed again when the ID token changes.
+        private transient volatile ParsedIdToken mParsedIdToken;
+
+        /**
+         * Returns a typed view of the claims of the IdToken. The view is built once and its
+         * accessors do not parse the token.
+         *
+         * @return IDTokenClaims.
+         * @throws ParseException
+         */
+        public IDTokenClaims getIDTokenClaims() throws ParseException {
+
+            ParsedIdToken parsedIdToken = getParsedIdToken();
+            IDTokenClaims idTokenClaims = parsedIdToken.mIdTokenClaims;
+            if (idTokenClaims == null) {
+                idTokenClaims = new IDTokenClaims(parsedIdToken.mClaimsSet);
+                parsedIdToken.mIdTokenClaims = idTokenClaims;
+            }
+            return idTokenClaims;
+        }
+
         /**
          * Returns subject(sub) claim of IdToken.
          *
@@ -230,7 +318,35 @@ public class OAuth2TokenResponse implements Serializable {
 
         private JWTClaimsSet getJWTClaimsSet() throws ParseException {
 
-            return SignedJWT.parse(mIdToken).getJWTClaimsSet();
+            return getParsedIdToken().mClaimsSet;
+        }
+
+        private ParsedIdToken getParsedIdToken() throws ParseException {
+
+            String idToken = mIdToken;
+            ParsedIdToken parsedIdToken = mParsedIdToken;
+            if (parsedIdToken == null || !parsedIdToken.mToken.equals(idToken)) {
+                parsedIdToken = new ParsedIdToken(idToken,
+                        SignedJWT.parse(idToken).getJWTClaimsSet());
+                mParsedIdToken = parsedIdToken;
+            }
+            return parsedIdToken;
+        }
+    }
+
+    /**
+     * An ID token with the claims parsed from it.
+     */
+    private static class ParsedIdToken {
+
+        private final String mToken;
+        private final JWTClaimsSet mClaimsSet;
+        private volatile IDTokenClaims mIdTokenClaims;
+
+        ParsedIdToken(String token, JWTClaimsSet claimsSet) {
+
+            this.mToken = token;
+            this.mClaimsSet = claimsSet;
         }
     }
 }
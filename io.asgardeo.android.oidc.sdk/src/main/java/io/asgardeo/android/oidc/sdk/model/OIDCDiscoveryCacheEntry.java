@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.model;
+
+import android.text.TextUtils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.util.Locale;
+
+/**
+ * Holds a cached OIDC discovery document together with the HTTP caching metadata returned by
+ * the Identity Server.
+ */
+public class OIDCDiscoveryCacheEntry {
+
+    private static final String KEY_DISCOVERY_ENDPOINT = "discovery_endpoint";
+    private static final String KEY_DOCUMENT = "document";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "last_modified";
+    private static final String KEY_EXPIRES_AT = "expires_at";
+
+    private final String mDiscoveryEndpoint;
+    private final String mETag;
+    private final String mLastModified;
+    private final long mExpiresAt;
+    private final OIDCDiscoveryResponse mResponse;
+
+    public OIDCDiscoveryCacheEntry(String discoveryEndpoint, OIDCDiscoveryResponse response,
+            String eTag, String lastModified, long expiresAt) {
+
+        this.mDiscoveryEndpoint = discoveryEndpoint;
+        this.mResponse = response;
+        this.mETag = eTag;
+        this.mLastModified = lastModified;
+        this.mExpiresAt = expiresAt;
+    }
+
+    /**
+     * Returns the discovery endpoint this entry belongs to.
+     *
+     * @return Discovery endpoint.
+     */
+    public String getDiscoveryEndpoint() {
+
+        return mDiscoveryEndpoint;
+    }
+
+    /**
+     * Returns the ETag returned with the discovery document.
+     *
+     * @return ETag or null.
+     */
+    public String getETag() {
+
+        return mETag;
+    }
+
+    /**
+     * Returns the Last-Modified value returned with the discovery document.
+     *
+     * @return Last-Modified or null.
+     */
+    public String getLastModified() {
+
+        return mLastModified;
+    }
+
+    /**
+     * Returns the time in milliseconds after which the entry should be revalidated.
+     *
+     * @return Expiry time.
+     */
+    public long getExpiresAt() {
+
+        return mExpiresAt;
+    }
+
+    /**
+     * Returns the discovery response of this entry.
+     *
+     * @return OIDCDiscoveryResponse.
+     */
+    public OIDCDiscoveryResponse getResponse() {
+
+        return mResponse;
+    }
+
+    /**
+     * Returns whether the entry can be served without revalidating it with the Identity Server.
+     *
+     * @return true if the entry is fresh.
+     */
+    public boolean isFresh() {
+
+        return System.currentTimeMillis() < mExpiresAt;
+    }
+
+    /**
+     * Returns whether a stale entry is still recent enough to be served while it is revalidated.
+     *
+     * @return true if the entry can be served.
+     */
+    public boolean isUsable() {
+
+        return System.currentTimeMillis() < mExpiresAt + Constants.DISCOVERY_MAX_STALE;
+    }
+
+    /**
+     * Returns a copy of this entry with the metadata of a 304 Not Modified response applied.
+     *
+     * @param eTag         ETag of the 304 response.
+     * @param lastModified Last-Modified of the 304 response.
+     * @param expiresAt    New expiry time.
+     * @return Revalidated entry.
+     */
+    public OIDCDiscoveryCacheEntry revalidate(String eTag, String lastModified, long expiresAt) {
+
+        return new OIDCDiscoveryCacheEntry(mDiscoveryEndpoint, mResponse,
+                eTag != null ? eTag : mETag, lastModified != null ? lastModified : mLastModified,
+                expiresAt);
+    }
+
+    /**
+     * Returns the JSON representation of the entry to be persisted.
+     *
+     * @return JSONObject.
+     * @throws JSONException
+     */
+    public JSONObject toJson() throws JSONException {
+
+        JSONObject json = new JSONObject();
+        json.put(KEY_DISCOVERY_ENDPOINT, mDiscoveryEndpoint);
+        json.put(KEY_DOCUMENT, mResponse.toJson());
+        json.putOpt(KEY_ETAG, mETag);
+        json.putOpt(KEY_LAST_MODIFIED, mLastModified);
+        json.put(KEY_EXPIRES_AT, mExpiresAt);
+        return json;
+    }
+
+    /**
+     * Builds an entry from its persisted JSON representation.
+     *
+     * @param json JSONObject.
+     * @return OIDCDiscoveryCacheEntry.
+     * @throws JSONException
+     */
+    public static OIDCDiscoveryCacheEntry fromJson(JSONObject json) throws JSONException {
+
+        return new OIDCDiscoveryCacheEntry(json.getString(KEY_DISCOVERY_ENDPOINT),
+                new OIDCDiscoveryResponse(json.getJSONObject(KEY_DOCUMENT)),
+                json.optString(KEY_ETAG, null), json.optString(KEY_LAST_MODIFIED, null),
+                json.getLong(KEY_EXPIRES_AT));
+    }
+
+    /**
+     * Returns the expiry time derived from the Cache-Control header of a discovery response.
+     *
+     * @param cacheControl Cache-Control header value.
+     * @return Expiry time in milliseconds.
+     */
+    public static long getExpiryTime(String cacheControl) {
+
+        long now = System.currentTimeMillis();
+        if (TextUtils.isEmpty(cacheControl)) {
+            return now + Constants.DEFAULT_DISCOVERY_MAX_AGE;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase(Locale.ROOT);
+            if (value.equals(Constants.NO_CACHE)) {
+                return now;
+            }
+            if (value.startsWith(Constants.MAX_AGE + "=")) {
+                try {
+                    return now + Long.parseLong(value.substring(Constants.MAX_AGE.length() + 1)
+                            .replace("\"", "")) * 1000L;
+                } catch (NumberFormatException e) {
+                    return now;
+                }
+            }
+        }
+        return now + Constants.DEFAULT_DISCOVERY_MAX_AGE;
+    }
+
+    /**
+     * Returns whether the Cache-Control header allows the discovery response to be stored.
+     *
+     * @param cacheControl Cache-Control header value.
+     * @return true if the response can be stored.
+     */
+    public static boolean isStorable(String cacheControl) {
+
+        return cacheControl == null
+                || !cacheControl.toLowerCase(Locale.ROOT).contains(Constants.NO_STORE);
+    }
+}
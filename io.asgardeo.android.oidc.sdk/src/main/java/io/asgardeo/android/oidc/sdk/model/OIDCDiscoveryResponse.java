@@ -19,26 +19,173 @@
 package io.asgardeo.android.oidc.sdk.model;
 
 import android.net.Uri;
+import android.util.JsonReader;
+import android.util.JsonToken;
 import android.util.Log;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.util.Util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
- * This class stores the discovery response.
+ * This class stores the discovery response. The document is parsed once when the response is
+ * created. The endpoints used by the SDK are kept as fields and the remaining properties are kept
+ * as raw JSON, which is parsed again only when one of them is read.
  */
 public class OIDCDiscoveryResponse implements Serializable {
 
-    private static final long serialVersionUID = -7820932808808718698L;
-    private String mDiscoveryResponse;
+    private static final long serialVersionUID = -2086281263925390114L;
     private static final String LOG_TAG = "OAuthDiscoveryResponse";
 
+    private final String mIssuer;
+    private final String mAuthorizationEndpoint;
+    private final String mTokenEndpoint;
+    private final String mUserInfoEndpoint;
+    private final String mLogoutEndpoint;
+    private final String mJwksUri;
+    private final String mOtherProperties;
+
+    private transient volatile JSONObject mOtherPropertiesJson;
+    private transient volatile Uri mAuthorizationEndpointUri;
+    private transient volatile Uri mTokenEndpointUri;
+    private transient volatile Uri mUserInfoEndpointUri;
+    private transient volatile Uri mLogoutEndpointUri;
+    private transient volatile Uri mJwksUriValue;
+
     public OIDCDiscoveryResponse(JSONObject discoveryResponse) {
 
-        mDiscoveryResponse = discoveryResponse.toString();
+        mIssuer = getString(discoveryResponse, Constants.ISSUER);
+        mAuthorizationEndpoint = getString(discoveryResponse, Constants.AUTHORIZATION_ENDPOINT);
+        mTokenEndpoint = getString(discoveryResponse, Constants.TOKEN_ENDPOINT);
+        mUserInfoEndpoint = getString(discoveryResponse, Constants.USERINFO_ENDPOINT);
+        mLogoutEndpoint = getString(discoveryResponse, Constants.LOGOUT_ENDPOINT);
+        mJwksUri = getString(discoveryResponse, Constants.JWKS_URI);
+
+        JSONObject otherProperties = new JSONObject();
+        Iterator<String> keys = discoveryResponse.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!isKnownProperty(key)) {
+                putOtherProperty(otherProperties, key, discoveryResponse.opt(key));
+            }
+        }
+        mOtherProperties = otherProperties.toString();
+    }
+
+    private OIDCDiscoveryResponse(Map<String, String> endpoints, JSONObject otherProperties) {
+
+        mIssuer = endpoints.get(Constants.ISSUER);
+        mAuthorizationEndpoint = endpoints.get(Constants.AUTHORIZATION_ENDPOINT);
+        mTokenEndpoint = endpoints.get(Constants.TOKEN_ENDPOINT);
+        mUserInfoEndpoint = endpoints.get(Constants.USERINFO_ENDPOINT);
+        mLogoutEndpoint = endpoints.get(Constants.LOGOUT_ENDPOINT);
+        mJwksUri = endpoints.get(Constants.JWKS_URI);
+        mOtherProperties = otherProperties.toString();
+    }
+
+    /**
+     * Reads the discovery response straight from the JSON stream. The endpoints are read as
+     * strings and the remaining properties are kept as raw JSON.
+     *
+     * @param reader JsonReader positioned at the discovery document.
+     * @return OIDCDiscoveryResponse.
+     * @throws IOException If the document is not a valid JSON object.
+     */
+    public static OIDCDiscoveryResponse fromJson(JsonReader reader) throws IOException {
 
+        Map<String, String> endpoints = new HashMap<>();
+        JSONObject otherProperties = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (!isKnownProperty(name)) {
+                putOtherProperty(otherProperties, name, toJsonValue(Util.readJsonValue(reader)));
+            } else if (reader.peek() == JsonToken.STRING) {
+                endpoints.put(name, reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new OIDCDiscoveryResponse(endpoints, otherProperties);
+    }
+
+    /**
+     * Returns the JSON representation of the properties kept in this response.
+     *
+     * @return JSONObject.
+     * @throws JSONException
+     */
+    public JSONObject toJson() throws JSONException {
+
+        JSONObject json = new JSONObject(mOtherProperties);
+        json.putOpt(Constants.ISSUER, mIssuer);
+        json.putOpt(Constants.AUTHORIZATION_ENDPOINT, mAuthorizationEndpoint);
+        json.putOpt(Constants.TOKEN_ENDPOINT, mTokenEndpoint);
+        json.putOpt(Constants.USERINFO_ENDPOINT, mUserInfoEndpoint);
+        json.putOpt(Constants.LOGOUT_ENDPOINT, mLogoutEndpoint);
+        json.putOpt(Constants.JWKS_URI, mJwksUri);
+        return json;
+    }
+
+    private OIDCDiscoveryResponse(DataInput in) throws IOException {
+
+        mIssuer = Util.readString(in);
+        mAuthorizationEndpoint = Util.readString(in);
+        mTokenEndpoint = Util.readString(in);
+        mUserInfoEndpoint = Util.readString(in);
+        mLogoutEndpoint = Util.readString(in);
+        mJwksUri = Util.readString(in);
+        mOtherProperties = Util.readString(in);
+    }
+
+    /**
+     * Writes the discovery response in the compact binary form used by the session store.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        Util.writeString(out, mIssuer);
+        Util.writeString(out, mAuthorizationEndpoint);
+        Util.writeString(out, mTokenEndpoint);
+        Util.writeString(out, mUserInfoEndpoint);
+        Util.writeString(out, mLogoutEndpoint);
+        Util.writeString(out, mJwksUri);
+        Util.writeString(out, mOtherProperties);
+    }
+
+    /**
+     * Reads the discovery response written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return OIDCDiscoveryResponse.
+     * @throws IOException
+     */
+    public static OIDCDiscoveryResponse readFrom(DataInput in) throws IOException {
+
+        return new OIDCDiscoveryResponse(in);
+    }
+
+    /**
+     * Get issuer from discovery object.
+     *
+     * @return Issuer.
+     */
+    public String getIssuer() {
+
+        return mIssuer;
     }
 
     /**
@@ -48,8 +195,12 @@ public class OIDCDiscoveryResponse implements Serializable {
      */
     public Uri getTokenEndpoint() {
 
-        Log.i(LOG_TAG, "Get token endpoint");
-        return getRequiredUri(Constants.TOKEN_ENDPOINT);
+        Uri uri = mTokenEndpointUri;
+        if (uri == null && mTokenEndpoint != null) {
+            uri = Uri.parse(mTokenEndpoint);
+            mTokenEndpointUri = uri;
+        }
+        return uri;
     }
 
     /**
@@ -59,8 +210,12 @@ public class OIDCDiscoveryResponse implements Serializable {
      */
     public Uri getAuthorizationEndpoint() {
 
-        Log.d(LOG_TAG, "Get authorization endpoint");
-        return getRequiredUri(Constants.AUTHORIZATION_ENDPOINT);
+        Uri uri = mAuthorizationEndpointUri;
+        if (uri == null && mAuthorizationEndpoint != null) {
+            uri = Uri.parse(mAuthorizationEndpoint);
+            mAuthorizationEndpointUri = uri;
+        }
+        return uri;
     }
 
     /**
@@ -70,8 +225,12 @@ public class OIDCDiscoveryResponse implements Serializable {
      */
     public Uri getLogoutEndpoint() {
 
-        Log.d(LOG_TAG, "Get Logout endpoint");
-        return getRequiredUri(Constants.LOGOUT_ENDPOINT);
+        Uri uri = mLogoutEndpointUri;
+        if (uri == null && mLogoutEndpoint != null) {
+            uri = Uri.parse(mLogoutEndpoint);
+            mLogoutEndpointUri = uri;
+        }
+        return uri;
     }
 
     /**
@@ -81,8 +240,27 @@ public class OIDCDiscoveryResponse implements Serializable {
      */
     public Uri getUserInfoEndpoint() {
 
-        Log.d(LOG_TAG, "Get UserInfo endpoint");
-        return getRequiredUri(Constants.USERINFO_ENDPOINT);
+        Uri uri = mUserInfoEndpointUri;
+        if (uri == null && mUserInfoEndpoint != null) {
+            uri = Uri.parse(mUserInfoEndpoint);
+            mUserInfoEndpointUri = uri;
+        }
+        return uri;
+    }
+
+    /**
+     * Get JWKS URI from discovery object.
+     *
+     * @return JWKS URI.
+     */
+    public Uri getJwksUri() {
+
+        Uri uri = mJwksUriValue;
+        if (uri == null && mJwksUri != null) {
+            uri = Uri.parse(mJwksUri);
+            mJwksUriValue = uri;
+        }
+        return uri;
     }
 
     /**
@@ -93,30 +271,118 @@ public class OIDCDiscoveryResponse implements Serializable {
      */
     public Uri getRequiredUri(String endpointName) {
 
-        Uri endpoint = null;
-        try {
-            endpoint = Uri.parse(getDiscoveryProperty(endpointName));
-        } catch (Throwable ex) {
-            Log.e(LOG_TAG, endpointName + "could not be parsed ");
+        switch (endpointName) {
+            case Constants.AUTHORIZATION_ENDPOINT:
+                return getAuthorizationEndpoint();
+            case Constants.TOKEN_ENDPOINT:
+                return getTokenEndpoint();
+            case Constants.USERINFO_ENDPOINT:
+                return getUserInfoEndpoint();
+            case Constants.LOGOUT_ENDPOINT:
+                return getLogoutEndpoint();
+            case Constants.JWKS_URI:
+                return getJwksUri();
+            default:
+                String endpoint = getDiscoveryProperty(endpointName);
+                if (endpoint == null) {
+                    Log.e(LOG_TAG, endpointName + "could not be parsed ");
+                    return null;
+                }
+                return Uri.parse(endpoint);
         }
-        return endpoint;
     }
 
     /**
-     * Returns the property from the discovery object
+     * Returns the property from the discovery object. A property which is not a string, such as
+     * scopes_supported, is returned as its JSON text.
      *
      * @param property Discovery property name
      * @return Supported Value for that property from discovery object
      */
     public String getDiscoveryProperty(String property) {
 
-        String discoveryProperty = null;
+        switch (property) {
+            case Constants.ISSUER:
+                return mIssuer;
+            case Constants.AUTHORIZATION_ENDPOINT:
+                return mAuthorizationEndpoint;
+            case Constants.TOKEN_ENDPOINT:
+                return mTokenEndpoint;
+            case Constants.USERINFO_ENDPOINT:
+                return mUserInfoEndpoint;
+            case Constants.LOGOUT_ENDPOINT:
+                return mLogoutEndpoint;
+            case Constants.JWKS_URI:
+                return mJwksUri;
+            default:
+                Object value = getOtherProperties().opt(property);
+                if (value == null || JSONObject.NULL.equals(value)) {
+                    return null;
+                }
+                return value instanceof String ? (String) value : value.toString();
+        }
+    }
+
+    private JSONObject getOtherProperties() {
+
+        JSONObject otherProperties = mOtherPropertiesJson;
+        if (otherProperties == null) {
+            try {
+                otherProperties = new JSONObject(mOtherProperties);
+            } catch (JSONException e) {
+                Log.e(LOG_TAG, "Discovery properties could not be parsed", e);
+                otherProperties = new JSONObject();
+            }
+            mOtherPropertiesJson = otherProperties;
+        }
+        return otherProperties;
+    }
+
+    private static boolean isKnownProperty(String property) {
+
+        return Constants.ISSUER.equals(property)
+                || Constants.AUTHORIZATION_ENDPOINT.equals(property)
+                || Constants.TOKEN_ENDPOINT.equals(property)
+                || Constants.USERINFO_ENDPOINT.equals(property)
+                || Constants.LOGOUT_ENDPOINT.equals(property)
+                || Constants.JWKS_URI.equals(property);
+    }
+
+    private static void putOtherProperty(JSONObject otherProperties, String name, Object value) {
+
         try {
-            JSONObject obj = new JSONObject(mDiscoveryResponse);
-            discoveryProperty = (String) obj.get(property);
+            otherProperties.put(name, value);
         } catch (JSONException e) {
+            // Only non-finite numbers are rejected, and JSON has none.
+            Log.w(LOG_TAG, name + " could not be kept", e);
+        }
+    }
 
+    // Converts a value read by Util.readJsonValue, since JSONObject does not wrap maps and lists
+    // on every API level.
+    private static Object toJsonValue(Object value) {
+
+        if (value == null) {
+            return JSONObject.NULL;
+        } else if (value instanceof Map) {
+            JSONObject object = new JSONObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                putOtherProperty(object, (String) entry.getKey(), toJsonValue(entry.getValue()));
+            }
+            return object;
+        } else if (value instanceof List) {
+            JSONArray array = new JSONArray();
+            for (Object item : (List<?>) value) {
+                array.put(toJsonValue(item));
+            }
+            return array;
         }
-        return discoveryProperty;
+        return value;
+    }
+
+    private static String getString(JSONObject json, String property) {
+
+        Object value = json.opt(property);
+        return value instanceof String ? (String) value : null;
     }
 }
@@ -18,6 +18,11 @@
 
 package io.asgardeo.android.oidc.sdk.model;
 
+import io.asgardeo.android.oidc.sdk.util.Util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Map;
 
@@ -59,11 +64,39 @@ public class User implements Serializable {
     }
 
     /**
-     * Returns attributes of the user.
+     * Returns attributes of the user. The attributes set from a userinfo response are read-only.
      *
      * @return Map of attributes.
      */
     public Map<String, Object> getAttributes() {
         return mAttributes;
     }
+
+    /**
+     * Writes the user in the compact binary form used by the session store.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        Util.writeString(out, mUserName);
+        Util.writeValue(out, mAttributes);
+    }
+
+    /**
+     * Reads the user written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return User.
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static User readFrom(DataInput in) throws IOException {
+
+        User user = new User();
+        user.setUserName(Util.readString(in));
+        user.setAttributes((Map<String, Object>) Util.readValue(in));
+        return user;
+    }
 }
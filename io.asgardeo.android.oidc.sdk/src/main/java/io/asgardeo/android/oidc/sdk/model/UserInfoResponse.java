@@ -18,26 +18,97 @@
 
 package io.asgardeo.android.oidc.sdk.model;
 
+import android.util.JsonReader;
 import android.util.Log;
 import org.json.JSONException;
 import org.json.JSONObject;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.util.Util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * This class contains userinfo response.
+ * This class contains userinfo response. The response is parsed once into an immutable map of
+ * plain Java values, which the typed accessors read without parsing the response again. Nested
+ * JSON objects are maps and JSON arrays are lists. A response created from a JSONObject reads the
+ * claims through a read-only view of it instead, which converts only the claims which are read.
  */
 public class UserInfoResponse implements Serializable {
 
     private static final long serialVersionUID = -6173570286358038816L;
     private static final String LOG_TAG = "UserInfoResponse";
+    private static final String SERIALIZED_RESPONSE = "mUserInfoResponse";
 
-    private String mUserInfoResponse;
+    // Earlier versions serialized the response as its JSON text. The field is kept so that they
+    // are still read, and is written as null before the claims in the compact binary form.
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField(SERIALIZED_RESPONSE, String.class)
+    };
+
+    private transient Map<String, Object> mClaims;
 
     public UserInfoResponse(JSONObject userInfoResponse) {
 
-        mUserInfoResponse = userInfoResponse.toString();
+        // The view is kept as it is, so the claims which are not read are never converted.
+        mClaims = Util.asMap(userInfoResponse);
+    }
+
+    private UserInfoResponse(Map<String, Object> claims) {
+
+        mClaims = toImmutableMap(claims);
+    }
+
+    /**
+     * Reads the userinfo response straight from the JSON stream.
+     *
+     * @param reader JsonReader positioned at the userinfo response.
+     * @return UserInfoResponse.
+     * @throws IOException If the response is not a valid JSON object.
+     */
+    @SuppressWarnings("unchecked")
+    public static UserInfoResponse fromJson(JsonReader reader) throws IOException {
+
+        Object claims = Util.readJsonValue(reader);
+        if (!(claims instanceof Map)) {
+            throw new IOException("Userinfo response is not a JSON object");
+        }
+        return new UserInfoResponse((Map<String, Object>) claims);
+    }
+
+    /**
+     * Writes the userinfo response in the compact binary form used by the session store.
+     *
+     * @param out DataOutput.
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        Util.writeValue(out, mClaims);
+    }
+
+    /**
+     * Reads the userinfo response written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in DataInput.
+     * @return UserInfoResponse.
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static UserInfoResponse readFrom(DataInput in) throws IOException {
+
+        return new UserInfoResponse((Map<String, Object>) Util.readValue(in));
     }
 
     /**
@@ -47,7 +118,7 @@ public class UserInfoResponse implements Serializable {
      */
     public String getSubject() {
 
-        return getUserInfoProperty(Constants.SUBJECT);
+        return getStringClaim(Constants.SUBJECT);
     }
 
     /**
@@ -58,27 +129,189 @@ public class UserInfoResponse implements Serializable {
      */
     public String getUserInfoProperty(String property) {
 
-        String userInfoProperty = null;
-        try {
-            JSONObject obj = new JSONObject(mUserInfoResponse);
-            userInfoProperty = (String) obj.get(property);
-            Log.d(LOG_TAG, "Get the value for the claim: " + property + " from userinfo response");
+        return getStringClaim(property);
+    }
 
-        } catch (JSONException e) {
-            Log.e(LOG_TAG, "Error while getting getting claims from userinfo response", e);
+    /**
+     * Returns a string claim.
+     *
+     * @param name Claim name.
+     * @return Claim value, or null if the claim is not present or is not a string.
+     */
+    public String getStringClaim(String name) {
+
+        return getClaim(name, String.class);
+    }
+
+    /**
+     * Returns a boolean claim. The string values "true" and "false" are accepted as well, since
+     * some Identity Servers return boolean claims such as email_verified as strings.
+     *
+     * @param name Claim name.
+     * @return Claim value, or null if the claim is not present or is not a boolean.
+     */
+    public Boolean getBooleanClaim(String name) {
+
+        Object value = mClaims.get(name);
+        if (value instanceof String) {
+            if ("true".equalsIgnoreCase((String) value)) {
+                return Boolean.TRUE;
+            } else if ("false".equalsIgnoreCase((String) value)) {
+                return Boolean.FALSE;
+            }
+        }
+        return getClaim(name, Boolean.class);
+    }
+
+    /**
+     * Returns a numeric claim, such as updated_at.
+     *
+     * @param name Claim name.
+     * @return Claim value, or null if the claim is not present or is not a number.
+     */
+    public Number getNumberClaim(String name) {
+
+        return getClaim(name, Number.class);
+    }
+
+    /**
+     * Returns a claim whose value is a JSON array.
+     *
+     * @param name Claim name.
+     * @return Unmodifiable list of the values, or null if the claim is not present or is not an
+     * array.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> getListClaim(String name) {
+
+        return getClaim(name, List.class);
+    }
+
+    /**
+     * Returns a claim whose value is a JSON array of strings, such as groups or roles. A single
+     * string value is returned as a list of one value.
+     *
+     * @param name Claim name.
+     * @return Unmodifiable list of the string values, or null if the claim is not present or is
+     * not an array of strings.
+     */
+    public List<String> getStringListClaim(String name) {
+
+        Object value = mClaims.get(name);
+        if (value instanceof String) {
+            return Collections.singletonList((String) value);
         }
-        return userInfoProperty;
+        List<Object> values = getListClaim(name);
+        if (values == null) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object item : values) {
+            if (!(item instanceof String)) {
+                Log.w(LOG_TAG, "Claim " + name + " of the userinfo response is not a string list");
+                return null;
+            }
+            strings.add((String) item);
+        }
+        return Collections.unmodifiableList(strings);
     }
 
     /**
-     * Returns all claims from userinfo response.
+     * Returns a claim whose value is a JSON object, such as address.
+     *
+     * @param name Claim name.
+     * @return Unmodifiable map of the values, or null if the claim is not present or is not an
+     * object.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getObjectClaim(String name) {
+
+        return getClaim(name, Map.class);
+    }
+
+    /**
+     * Returns all claims from userinfo response as a new JSONObject. Use {@link #getClaims()} to
+     * read the claims without creating a JSONObject.
      *
      * @return all claims.
      * @throws JSONException JSONException.
      */
     public JSONObject getUserInfoProperties() throws JSONException {
 
-        Log.d(LOG_TAG, "Get all claim information from userinfo response");
-        return new JSONObject(mUserInfoResponse);
+        return new JSONObject(mClaims);
+    }
+
+    /**
+     * Returns all the claims of the userinfo response.
+     *
+     * @return Unmodifiable map of claims.
+     */
+    public Map<String, Object> getClaims() {
+
+        return mClaims;
+    }
+
+    private <T> T getClaim(String name, Class<T> type) {
+
+        Object value = mClaims.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            Log.w(LOG_TAG, "Claim " + name + " of the userinfo response is not a "
+                    + type.getSimpleName());
+            return null;
+        }
+        return type.cast(value);
+    }
+
+    private static Map<String, Object> toImmutableMap(Map<String, Object> map) {
+
+        Map<String, Object> copy = new HashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), toImmutableValue(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toImmutableValue(Object value) {
+
+        if (value instanceof Map) {
+            return toImmutableMap((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copy.add(toImmutableValue(item));
+            }
+            return Collections.unmodifiableList(copy);
+        } else if (JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        return value;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put(SERIALIZED_RESPONSE, null);
+        out.writeFields();
+        writeTo(out);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        String userInfoResponse = (String) in.readFields().get(SERIALIZED_RESPONSE, null);
+        if (userInfoResponse == null) {
+            mClaims = toImmutableMap((Map<String, Object>) Util.readValue(in));
+            return;
+        }
+        try {
+            mClaims = toImmutableMap(Util.toMap(new JSONObject(userInfoResponse)));
+        } catch (JSONException e) {
+            throw new InvalidObjectException("Invalid serialized userinfo response");
+        }
     }
 }
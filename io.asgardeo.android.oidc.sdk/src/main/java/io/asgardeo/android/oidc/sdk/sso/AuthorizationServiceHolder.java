@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.sso;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import net.openid.appauth.AppAuthConfiguration;
+import net.openid.appauth.AuthorizationService;
+import net.openid.appauth.browser.BrowserDescriptor;
+import net.openid.appauth.connectivity.ConnectionBuilder;
+import net.openid.appauth.connectivity.DefaultConnectionBuilder;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
+
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the AuthorizationServices shared by all the login services and activities of the process.
+ *
+ * Creating an AuthorizationService queries the package manager for the browsers and binds to the
+ * Custom Tabs service of the selected browser. The shared instance does this once, and keeps the
+ * selected browser and the warmed up Custom Tabs session for the following flows. The timeouts of
+ * the token requests are fixed when an AuthorizationService is created, so one service is shared
+ * per pair of connect and read timeouts. Each one is reference counted, and disposed once it has
+ * not been used for {@link Constants#AUTHORIZATION_SERVICE_IDLE_TIMEOUT}.
+ */
+public class AuthorizationServiceHolder {
+
+    private static final String LOG_TAG = "AuthorizationService";
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    private static final Map<String, SharedService> sServices = new HashMap<>();
+
+    private AuthorizationServiceHolder() {
+
+    }
+
+    /**
+     * Returns the shared AuthorizationService with the default timeouts, creating it if needed.
+     * Each call must be paired with a call to {@link #release(AuthorizationService)}.
+     *
+     * @param context Context.
+     * @return AuthorizationService.
+     */
+    public static AuthorizationService acquire(Context context) {
+
+        return acquire(context, RequestOptions.getDefault());
+    }
+
+    /**
+     * Returns the shared AuthorizationService whose token requests use the connect and read
+     * timeouts of the RequestOptions, creating it if needed. Each call must be paired with a call
+     * to {@link #release(AuthorizationService)}.
+     *
+     * @param context        Context.
+     * @param requestOptions RequestOptions of the token requests.
+     * @return AuthorizationService.
+     */
+    public static synchronized AuthorizationService acquire(Context context,
+            RequestOptions requestOptions) {
+
+        int connectTimeout = (int) requestOptions.getConnectTimeout();
+        int readTimeout = (int) requestOptions.getReadTimeout();
+        String key = connectTimeout + ":" + readTimeout;
+        SharedService sharedService = sServices.get(key);
+        if (sharedService == null) {
+            // The service outlives the caller, so it must not hold an activity.
+            AuthorizationService authorizationService = new AuthorizationService(
+                    context.getApplicationContext(), new AppAuthConfiguration.Builder()
+                    .setConnectionBuilder(createConnectionBuilder(connectTimeout, readTimeout))
+                    .build());
+            sharedService = new SharedService(key, authorizationService);
+            sServices.put(key, sharedService);
+            Log.d(LOG_TAG, "Created the AuthorizationService using browser "
+                    + getBrowserPackage(authorizationService.getBrowserDescriptor()));
+        }
+        sHandler.removeCallbacks(sharedService.mDisposeTask);
+        sharedService.mReferenceCount++;
+        return sharedService.mAuthorizationService;
+    }
+
+    /**
+     * Releases an AuthorizationService returned by {@link #acquire(Context, RequestOptions)}.
+     *
+     * @param authorizationService AuthorizationService.
+     */
+    public static synchronized void release(AuthorizationService authorizationService) {
+
+        SharedService sharedService = find(authorizationService);
+        if (sharedService == null || sharedService.mReferenceCount == 0) {
+            Log.w(LOG_TAG, "Releasing an AuthorizationService which is not held");
+            return;
+        }
+        if (--sharedService.mReferenceCount == 0) {
+            sHandler.postDelayed(sharedService.mDisposeTask,
+                    Constants.AUTHORIZATION_SERVICE_IDLE_TIMEOUT);
+        }
+    }
+
+    private static SharedService find(AuthorizationService authorizationService) {
+
+        for (SharedService sharedService : sServices.values()) {
+            if (sharedService.mAuthorizationService == authorizationService) {
+                return sharedService;
+            }
+        }
+        return null;
+    }
+
+    private static synchronized void disposeIfUnused(SharedService sharedService) {
+
+        if (sharedService.mReferenceCount == 0
+                && sServices.get(sharedService.mKey) == sharedService) {
+            sServices.remove(sharedService.mKey);
+            sharedService.mAuthorizationService.dispose();
+            Log.d(LOG_TAG, "Disposed the idle AuthorizationService");
+        }
+    }
+
+    /**
+     * Creates the ConnectionBuilder of the token requests, which applies the timeouts.
+     *
+     * @param connectTimeout Connect timeout in milliseconds.
+     * @param readTimeout    Read timeout in milliseconds.
+     * @return ConnectionBuilder.
+     */
+    private static ConnectionBuilder createConnectionBuilder(int connectTimeout,
+            int readTimeout) {
+
+        return uri -> {
+            HttpURLConnection connection = DefaultConnectionBuilder.INSTANCE.openConnection(uri);
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            return connection;
+        };
+    }
+
+    private static String getBrowserPackage(BrowserDescriptor browserDescriptor) {
+
+        return browserDescriptor != null ? browserDescriptor.packageName : "none";
+    }
+
+    /**
+     * AuthorizationService shared by the callers with the same timeouts.
+     */
+    private static class SharedService {
+
+        private final String mKey;
+        private final AuthorizationService mAuthorizationService;
+        private final Runnable mDisposeTask = () -> disposeIfUnused(this);
+        private int mReferenceCount;
+
+        SharedService(String key, AuthorizationService authorizationService) {
+
+            this.mKey = key;
+            this.mAuthorizationService = authorizationService;
+        }
+    }
+}
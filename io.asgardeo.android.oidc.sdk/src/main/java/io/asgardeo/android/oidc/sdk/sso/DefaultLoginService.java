@@ -29,15 +29,27 @@ import net.openid.appauth.AuthorizationRequest;
 import net.openid.appauth.AuthorizationService;
 import net.openid.appauth.AuthorizationServiceConfiguration;
 import net.openid.appauth.ResponseTypeValues;
+import io.asgardeo.android.oidc.sdk.async.Cancellable;
+import io.asgardeo.android.oidc.sdk.async.SdkExecutor;
+import io.asgardeo.android.oidc.sdk.async.SdkFuture;
 import io.asgardeo.android.oidc.sdk.config.Configuration;
 import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
-import io.asgardeo.android.oidc.sdk.exception.ClientException;
+import io.asgardeo.android.oidc.sdk.context.AuthorizationFlow;
+import io.asgardeo.android.oidc.sdk.context.AuthorizationFlowRegistry;
+import io.asgardeo.android.oidc.sdk.context.SessionStore;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
 import io.asgardeo.android.oidc.sdk.config.FileBasedConfiguration;
+import io.asgardeo.android.oidc.sdk.handler.OIDCDiscoveryCache;
 import io.asgardeo.android.oidc.sdk.handler.OIDCDiscoveryRequestHandler;
+import io.asgardeo.android.oidc.sdk.handler.SessionHandler;
 import io.asgardeo.android.oidc.sdk.activity.TokenManagementActivity;
+import io.asgardeo.android.oidc.sdk.handler.TokenRefreshRequestHandler;
 import io.asgardeo.android.oidc.sdk.handler.UserInfoRequestHandler;
+import io.asgardeo.android.oidc.sdk.http.RequestOptions;
 import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryCacheEntry;
 import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
+import io.asgardeo.android.oidc.sdk.model.UserInfoResponse;
 import io.asgardeo.android.oidc.sdk.constant.Constants;
 import io.asgardeo.android.oidc.sdk.util.Util;
 
@@ -45,6 +57,8 @@ import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -53,19 +67,42 @@ import java.util.concurrent.atomic.AtomicReference;
 public class DefaultLoginService implements LoginService {
 
     private final AtomicReference<CustomTabsIntent> customTabIntent = new AtomicReference<>();
-    private Configuration mConfiguration;
+    private final AtomicReference<OIDCDiscoveryResponse> mDiscoveryResponse =
+            new AtomicReference<>();
+    private final AtomicReference<AuthorizationServiceConfiguration> mServiceConfiguration =
+            new AtomicReference<>();
+    private final AtomicReference<PreparedAuthorization> mPreparedAuthorization =
+            new AtomicReference<>();
+    private final AtomicInteger mPendingAuthorizations = new AtomicInteger();
+    private volatile long mLastAuthorizationTime;
+    private volatile Configuration mConfiguration;
+    private SdkFuture<FileBasedConfiguration> mConfigurationFuture;
     private WeakReference<Context> mContext;
-    private OAuth2TokenResponse mOAuth2TokenResponse;
     private AuthorizationService mAuthorizationService;
+    private volatile TokenRefreshScheduler mTokenRefreshScheduler;
+    private SessionStore mSessionStore;
     private static final String LOG_TAG = "LoginService";
 
+    /**
+     * Creates a login service with the configuration in the res/raw/oidc_config.json file. The file
+     * is read on the SDK thread pool, and the operations of this login service wait for it.
+     *
+     * @param context Context.
+     */
     public DefaultLoginService(Context context) {
 
-        try {
-            mContext = new WeakReference<>(context);
-            mConfiguration = FileBasedConfiguration.getInstance(context);
-        } catch (ClientException e) {
-            Log.e(LOG_TAG, "Error while accessing FileBasedConfiguration instance", e);
+        mContext = new WeakReference<>(context);
+        mConfiguration = FileBasedConfiguration.peekInstance();
+        if (mConfiguration == null) {
+            mConfigurationFuture = FileBasedConfiguration.loadAsync(context);
+            mConfigurationFuture.addListener((configuration, exception) -> {
+                if (exception != null) {
+                    Log.e(LOG_TAG, "Error while accessing FileBasedConfiguration instance",
+                            exception);
+                } else {
+                    mConfiguration = configuration;
+                }
+            });
         }
     }
 
@@ -75,11 +112,127 @@ public class DefaultLoginService implements LoginService {
         mContext = new WeakReference<>(context);
     }
 
+    /**
+     * Creates a login service which stores the AuthenticationContext in the given SessionStore
+     * after each successful login and token refresh, and removes it on logout.
+     *
+     * @param context       Context.
+     * @param configuration Configuration.
+     * @param sessionStore  SessionStore.
+     */
+    public DefaultLoginService(Context context, Configuration configuration,
+            SessionStore sessionStore) {
+
+        this(context, configuration);
+        mSessionStore = sessionStore;
+    }
+
+    /**
+     * Prepares the authorization flow ahead of time. Resolves the OIDC discovery response, builds
+     * the AuthorizationServiceConfiguration and creates the AuthorizationService, which binds to
+     * the Custom Tabs service and warms up the browser. Then the AuthorizationRequest, including
+     * its state and PKCE parameters, is built and the browser is told that it may launch the
+     * authorization URL, so that it can load the login page in advance. Calling this while the
+     * application starts leaves nothing but the browser launch to
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)}.
+     */
+    public void prepare() {
+
+        getConfigurationAsync().addListener((configuration, exception) -> {
+            if (exception != null) {
+                Log.e(LOG_TAG, "Error while preparing the authorization flow", exception);
+            } else {
+                prepareAuthorizationFlow();
+            }
+        });
+    }
+
+    private void prepareAuthorizationFlow() {
+
+        getAuthorizationService();
+        OIDCDiscoveryResponse preparedResponse = getFreshDiscoveryResponse();
+        if (preparedResponse != null) {
+            prepareAuthorizationRequest(preparedResponse);
+            return;
+        }
+        new OIDCDiscoveryRequestHandler(mConfiguration.getDiscoveryUri().toString(),
+                OIDCDiscoveryCache.getInstance(mContext.get()),
+                (exception, oidcDiscoveryResponse) -> {
+                    if (exception != null) {
+                        Log.e(LOG_TAG, "Error while preparing the authorization flow", exception);
+                    } else if (oidcDiscoveryResponse != null) {
+                        mServiceConfiguration.set(
+                                createServiceConfiguration(oidcDiscoveryResponse));
+                        mDiscoveryResponse.set(oidcDiscoveryResponse);
+                        prepareAuthorizationRequest(oidcDiscoveryResponse);
+                    }
+                }).setRequestOptions(RequestOptions.from(mConfiguration)).submit();
+    }
+
+    /**
+     * Returns the discovery response held by this login service while the discovery cache holds it
+     * as fresh. A response which the cache has replaced is swapped for the cached one. Once the
+     * cached entry is stale or gone, the held response is dropped and null is returned, so that
+     * the discovery request handler revalidates it.
+     *
+     * @return Fresh OIDCDiscoveryResponse, or null.
+     */
+    private OIDCDiscoveryResponse getFreshDiscoveryResponse() {
+
+        OIDCDiscoveryResponse heldResponse = mDiscoveryResponse.get();
+        if (heldResponse == null) {
+            return null;
+        }
+        OIDCDiscoveryCacheEntry entry = OIDCDiscoveryCache.getInstance(mContext.get())
+                .peek(mConfiguration.getDiscoveryUri().toString());
+        if (entry == null || !entry.isFresh()) {
+            if (mDiscoveryResponse.compareAndSet(heldResponse, null)) {
+                Log.d(LOG_TAG, "Discovery response is stale and is revalidated");
+                mServiceConfiguration.set(null);
+            }
+            return null;
+        }
+        OIDCDiscoveryResponse cachedResponse = entry.getResponse();
+        if (cachedResponse != heldResponse
+                && mDiscoveryResponse.compareAndSet(heldResponse, cachedResponse)) {
+            mServiceConfiguration.set(createServiceConfiguration(cachedResponse));
+        }
+        return cachedResponse;
+    }
+
+    /**
+     * Builds the AuthorizationRequest of the next authorization and the CustomTabsIntent which
+     * launches it. Creating the intent builder with the authorization URL calls mayLaunchUrl on the
+     * Custom Tabs session. This waits for the browser to bind, so it is done in the background.
+     *
+     * @param oidcDiscoveryResponse OIDCDiscoveryResponse.
+     */
+    private void prepareAuthorizationRequest(OIDCDiscoveryResponse oidcDiscoveryResponse) {
+
+        if (mPreparedAuthorization.get() != null) {
+            return;
+        }
+        SdkExecutor.execute(() -> {
+            AuthorizationServiceConfiguration serviceConfiguration = mServiceConfiguration.get();
+            if (serviceConfiguration == null || mDiscoveryResponse.get() != oidcDiscoveryResponse) {
+                serviceConfiguration = createServiceConfiguration(oidcDiscoveryResponse);
+            }
+            AuthorizationRequest request = createAuthorizationRequest(serviceConfiguration);
+            CustomTabsIntent intent = getAuthorizationService()
+                    .createCustomTabsIntentBuilder(request.toUri()).build();
+            if (mPreparedAuthorization.compareAndSet(null,
+                    new PreparedAuthorization(oidcDiscoveryResponse, request, intent))) {
+                Log.d(LOG_TAG, "Authorization flow is prepared for service provider :"
+                        + mConfiguration.getClientId());
+            }
+        }, SdkExecutor.Priority.BACKGROUND);
+    }
+
     /**
      * Handles authorization flow by getting the endpoints from discovery service. If callUserInfo
      * value is true, then UserInfo request will happen. Else if callUserInfo value
-     * is false, SDK will not make any request to UserInfo Endpoint after token flow. Application can call
-     * userinfo endpoint explicitly by calling
+     * is false, SDK will not make any request to UserInfo Endpoint after token flow. Application
+     * can call userinfo endpoint explicitly by calling
      * {@link #getUserInfo(AuthenticationContext, UserInfoRequestHandler.UserInfoResponseCallback)}.
      * After successful authorization, AuthenticationContext object will be returned in the success
      * intent.
@@ -92,50 +245,192 @@ public class DefaultLoginService implements LoginService {
     public void authorize(PendingIntent successIntent, PendingIntent failureIntent,
             Boolean callUserInfo) {
 
+        authorizeAsync(successIntent, failureIntent, callUserInfo, null);
+    }
+
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)}. If callUserInfo is true and a
+     * listener is given, the success intent is sent with the User derived from the ID token
+     * without waiting for the userinfo response. The userinfo response is fetched afterwards and
+     * the listener is notified once the AuthenticationContext is updated.
+     *
+     * @param successIntent    Success intent.
+     * @param failureIntent    Failure Intent.
+     * @param callUserInfo     Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener Listener of the userinfo response, or null to send the success
+     *                         intent after the userinfo response.
+     * @return Handle to cancel the authorization flow. Once cancelled, the failure intent is sent
+     * instead of the success intent when the browser returns.
+     */
+    public Cancellable authorize(PendingIntent successIntent, PendingIntent failureIntent,
+            Boolean callUserInfo, UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
+        return authorizeAsync(successIntent, failureIntent, callUserInfo, userInfoListener);
+    }
+
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)} and returns a future which
+     * completes with the AuthenticationContext once the authentication is successful. The success
+     * and failure intents are still sent to bring the application back from the browser.
+     *
+     * @param successIntent Success intent.
+     * @param failureIntent Failure Intent.
+     * @param callUserInfo  If it is true, Request to UserInfo endpoint will happen after token
+     *                      exchange. Else no request to user info endpoint.
+     * @return Future of the AuthenticationContext.
+     */
+    public SdkFuture<AuthenticationContext> authorizeAsync(PendingIntent successIntent,
+            PendingIntent failureIntent, Boolean callUserInfo) {
+
+        return authorizeAsync(successIntent, failureIntent, callUserInfo, null);
+    }
+
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean,
+     * UserInfoRequestHandler.UserInfoUpdateListener)} and returns a future which completes with
+     * the AuthenticationContext once the authentication is successful.
+     *
+     * @param successIntent    Success intent.
+     * @param failureIntent    Failure Intent.
+     * @param callUserInfo     Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener Listener of the userinfo response, or null to complete the future
+     *                         after the userinfo response.
+     * @return Future of the AuthenticationContext.
+     */
+    public SdkFuture<AuthenticationContext> authorizeAsync(PendingIntent successIntent,
+            PendingIntent failureIntent, Boolean callUserInfo,
+            UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
+        return getConfigurationAsync().thenCompose(configuration -> startAuthorization(
+                successIntent, failureIntent, callUserInfo, userInfoListener));
+    }
+
+    /**
+     * Starts the authorization flow once the configuration is available.
+     *
+     * @param successIntent    Success intent.
+     * @param failureIntent    Failure Intent.
+     * @param callUserInfo     Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener Listener of the userinfo response, or null.
+     * @return Future of the AuthenticationContext.
+     */
+    private SdkFuture<AuthenticationContext> startAuthorization(PendingIntent successIntent,
+            PendingIntent failureIntent, Boolean callUserInfo,
+            UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
         // Creating a authentication context object to store context.
         AuthenticationContext authenticationContext = new AuthenticationContext();
-        mOAuth2TokenResponse = new OAuth2TokenResponse();
-        new OIDCDiscoveryRequestHandler(mConfiguration.getDiscoveryUri().toString(),
+        SdkFuture<AuthenticationContext> future = new SdkFuture<>();
+        mLastAuthorizationTime = System.currentTimeMillis();
+        mPendingAuthorizations.incrementAndGet();
+        future.addListener((result, exception) -> mPendingAuthorizations.decrementAndGet());
+        OIDCDiscoveryResponse preparedResponse = getFreshDiscoveryResponse();
+        if (preparedResponse != null) {
+            handleDiscoveryResponse(preparedResponse, successIntent, failureIntent, callUserInfo,
+                    userInfoListener, authenticationContext, future);
+            return future;
+        }
+        OIDCDiscoveryRequestHandler discoveryRequestHandler = new OIDCDiscoveryRequestHandler(
+                mConfiguration.getDiscoveryUri().toString(),
+                OIDCDiscoveryCache.getInstance(mContext.get()),
                 (exception, oidcDiscoveryResponse) -> {
+                    if (future.isDone()) {
+                        return;
+                    }
                     if (exception != null) {
                         Log.e(LOG_TAG, "Error while calling discovery endpoint", exception);
+                        future.completeExceptionally(exception);
                     } else {
-                        Log.i(LOG_TAG, "CallUserInfo" + callUserInfo);
-                        authenticationContext.setOIDCDiscoveryResponse(oidcDiscoveryResponse);
-                        Log.i(LOG_TAG, oidcDiscoveryResponse.getAuthorizationEndpoint().toString());
-                        authorizeRequest(TokenManagementActivity
-                                        .createStartIntent(mContext.get(), successIntent, failureIntent,
-                                                mOAuth2TokenResponse, authenticationContext, callUserInfo),
-                                failureIntent, authenticationContext);
+                        handleDiscoveryResponse(oidcDiscoveryResponse, successIntent, failureIntent,
+                                callUserInfo, userInfoListener, authenticationContext, future);
                     }
 
-                }).execute();
+                });
+        future.setCancelHandler(discoveryRequestHandler::cancel);
+        discoveryRequestHandler.setRequestOptions(RequestOptions.from(mConfiguration)).submit();
+        return future;
+    }
+
+    /**
+     * Continues the authorization flow once the OIDC discovery response is available.
+     *
+     * @param oidcDiscoveryResponse OIDCDiscoveryResponse.
+     * @param successIntent         Success intent.
+     * @param failureIntent         Failure Intent.
+     * @param callUserInfo          Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener      Listener of the userinfo response, or null.
+     * @param authenticationContext AuthenticationContext.
+     * @param future                Future of the authorization flow.
+     */
+    private void handleDiscoveryResponse(OIDCDiscoveryResponse oidcDiscoveryResponse,
+            PendingIntent successIntent, PendingIntent failureIntent, Boolean callUserInfo,
+            UserInfoRequestHandler.UserInfoUpdateListener userInfoListener,
+            AuthenticationContext authenticationContext, SdkFuture<AuthenticationContext> future) {
+
+        Log.i(LOG_TAG, "CallUserInfo" + callUserInfo);
+        authenticationContext.setOIDCDiscoveryResponse(oidcDiscoveryResponse);
+        Log.i(LOG_TAG, oidcDiscoveryResponse.getAuthorizationEndpoint().toString());
+        AuthorizationFlow flow = new AuthorizationFlow(authenticationContext,
+                new OAuth2TokenResponse(), Boolean.TRUE.equals(callUserInfo))
+                .setRequestOptions(RequestOptions.from(mConfiguration))
+                .setSessionStore(mSessionStore)
+                .setFuture(future)
+                .setUserInfoListener(userInfoListener);
+        authorizeRequest(flow, successIntent, failureIntent);
     }
 
     /**
-     * Call authorization endpoint and authorize the request.
+     * Call authorization endpoint and authorize the request. The flow is registered under the
+     * state of the authorization request, which identifies it when the browser returns.
      *
-     * @param completionIntent CompletionIntent.
-     * @param cancelIntent     CancelIntent.
+     * @param flow          AuthorizationFlow.
+     * @param successIntent Success intent.
+     * @param cancelIntent  CancelIntent.
      */
-    private void authorizeRequest(PendingIntent completionIntent, PendingIntent cancelIntent,
-            AuthenticationContext authenticationContext) {
+    private void authorizeRequest(AuthorizationFlow flow, PendingIntent successIntent,
+            PendingIntent cancelIntent) {
 
+        AuthenticationContext authenticationContext = flow.getAuthenticationContext();
         if (authenticationContext.getOIDCDiscoveryResponse() != null) {
-            OIDCDiscoveryResponse oidcDiscoveryResponse = authenticationContext.getOIDCDiscoveryResponse();
-            AuthorizationServiceConfiguration serviceConfiguration = new AuthorizationServiceConfiguration(
-                    oidcDiscoveryResponse.getAuthorizationEndpoint(), oidcDiscoveryResponse.getTokenEndpoint());
-
-            AuthorizationRequest.Builder builder = new AuthorizationRequest.Builder(
-                    serviceConfiguration, mConfiguration.getClientId(), ResponseTypeValues.CODE,
-                    mConfiguration.getRedirectUri());
-            builder.setScopes(mConfiguration.getScope());
-            AuthorizationRequest request = builder.build();
-            mAuthorizationService = new AuthorizationService(mContext.get());
-            CustomTabsIntent.Builder intentBuilder = mAuthorizationService
-                    .createCustomTabsIntentBuilder(request.toUri());
-            customTabIntent.set(intentBuilder.build());
-            mAuthorizationService
+            OIDCDiscoveryResponse oidcDiscoveryResponse =
+                    authenticationContext.getOIDCDiscoveryResponse();
+            // The state and PKCE verifier of a prepared request must not be used twice.
+            PreparedAuthorization prepared = mPreparedAuthorization.getAndSet(null);
+            AuthorizationRequest request;
+            AuthorizationService authorizationService = getAuthorizationService();
+            if (prepared != null && prepared.mDiscoveryResponse == oidcDiscoveryResponse) {
+                request = prepared.mRequest;
+                customTabIntent.set(prepared.mCustomTabsIntent);
+            } else {
+                AuthorizationServiceConfiguration serviceConfiguration =
+                        mServiceConfiguration.get();
+                if (serviceConfiguration == null
+                        || mDiscoveryResponse.get() != oidcDiscoveryResponse) {
+                    serviceConfiguration = createServiceConfiguration(oidcDiscoveryResponse);
+                }
+                request = createAuthorizationRequest(serviceConfiguration);
+                CustomTabsIntent.Builder intentBuilder = authorizationService
+                        .createCustomTabsIntentBuilder(request.toUri());
+                customTabIntent.set(intentBuilder.build());
+            }
+            PendingIntent completionIntent = TokenManagementActivity.createStartIntent(
+                    mContext.get(), successIntent, cancelIntent, request.state, flow);
+            SdkFuture<AuthenticationContext> future = flow.getFuture();
+            if (future != null) {
+                AuthorizationFlowRegistry flowRegistry =
+                        AuthorizationFlowRegistry.getInstance(mContext.get());
+                String state = request.state;
+                // A flow cancelled while the user is in the browser is not completed.
+                future.addListener((result, exception) -> {
+                    if (exception instanceof CancellationException) {
+                        flowRegistry.cancel(state);
+                    }
+                });
+            }
+            authorizationService
                     .performAuthorizationRequest(request, completionIntent, cancelIntent,
                             customTabIntent.get());
             Log.d(LOG_TAG, "Handling authorization request for service provider :" + mConfiguration
@@ -146,11 +441,87 @@ public class DefaultLoginService implements LoginService {
         }
     }
 
+    /**
+     * Returns a future of the configuration of this login service, which completes right away
+     * unless the configuration file is still being read.
+     *
+     * @return Future of the Configuration.
+     */
+    private SdkFuture<Configuration> getConfigurationAsync() {
+
+        Configuration configuration = mConfiguration;
+        if (configuration != null || mConfigurationFuture == null) {
+            return SdkFuture.completed(configuration);
+        }
+        SdkFuture<Configuration> future = new SdkFuture<>();
+        mConfigurationFuture.addListener((loadedConfiguration, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(exception);
+            } else {
+                mConfiguration = loadedConfiguration;
+                future.complete(loadedConfiguration);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Returns the AuthorizationService of this login service, acquiring the shared one from
+     * {@link AuthorizationServiceHolder} if needed. Its token requests use the timeouts of the
+     * Configuration. It is released on logout.
+     *
+     * @return AuthorizationService.
+     */
+    private synchronized AuthorizationService getAuthorizationService() {
+
+        if (mAuthorizationService == null) {
+            mAuthorizationService = AuthorizationServiceHolder.acquire(mContext.get(),
+                    RequestOptions.from(mConfiguration));
+        }
+        return mAuthorizationService;
+    }
+
+    /**
+     * Creates an AuthorizationRequest of the authorization code flow. AppAuth generates a new
+     * state, nonce and PKCE code verifier for each request.
+     *
+     * @param serviceConfiguration AuthorizationServiceConfiguration.
+     * @return AuthorizationRequest.
+     */
+    private AuthorizationRequest createAuthorizationRequest(
+            AuthorizationServiceConfiguration serviceConfiguration) {
+
+        AuthorizationRequest.Builder builder = new AuthorizationRequest.Builder(
+                serviceConfiguration, mConfiguration.getClientId(), ResponseTypeValues.CODE,
+                mConfiguration.getRedirectUri());
+        builder.setScopes(mConfiguration.getScope());
+        return builder.build();
+    }
+
+    private AuthorizationServiceConfiguration createServiceConfiguration(
+            OIDCDiscoveryResponse oidcDiscoveryResponse) {
+
+        return new AuthorizationServiceConfiguration(
+                oidcDiscoveryResponse.getAuthorizationEndpoint(),
+                oidcDiscoveryResponse.getTokenEndpoint());
+    }
+
     /**
      * Handles logout request from the client application.
      */
     public void logout(Context context, AuthenticationContext authenticationContext) {
 
+        getConfigurationAsync().addListener((configuration, exception) -> {
+            if (exception != null) {
+                Log.e(LOG_TAG, "Error while creating logout request", exception);
+            } else {
+                logoutRequest(context, authenticationContext);
+            }
+        });
+    }
+
+    private void logoutRequest(Context context, AuthenticationContext authenticationContext) {
+
         OAuth2TokenResponse oAuth2TokenResponse = null;
         Map<String, String> paramMap = new HashMap<>();
         if (authenticationContext.getOAuth2TokenResponse() != null) {
@@ -181,6 +552,37 @@ public class DefaultLoginService implements LoginService {
 
     }
 
+    /**
+     * Restores the AuthenticationContext of the previous login from the SessionStore. The stored
+     * OIDC discovery response is also used to prepare the authorization flow, in case the user has
+     * to login again.
+     *
+     * @param callback SessionRestoreCallback.
+     */
+    public void restoreSession(SessionHandler.SessionRestoreCallback callback) {
+
+        if (mSessionStore == null) {
+            callback.onSessionRestored(null);
+            return;
+        }
+        SessionHandler.restore(mSessionStore, authenticationContext -> {
+            if (authenticationContext != null) {
+                OIDCDiscoveryResponse oidcDiscoveryResponse =
+                        authenticationContext.getOIDCDiscoveryResponse();
+                if (oidcDiscoveryResponse != null && mDiscoveryResponse.get() == null) {
+                    mServiceConfiguration.set(createServiceConfiguration(oidcDiscoveryResponse));
+                    mDiscoveryResponse.set(oidcDiscoveryResponse);
+                }
+                Configuration configuration = mConfiguration;
+                if (configuration != null) {
+                    Log.d(LOG_TAG, "Session is restored for service provider :"
+                            + configuration.getClientId());
+                }
+            }
+            callback.onSessionRestored(authenticationContext);
+        });
+    }
+
     /**
      * Returns userinfo response.
      *
@@ -189,24 +591,294 @@ public class DefaultLoginService implements LoginService {
     public void getUserInfo(AuthenticationContext context,
             UserInfoRequestHandler.UserInfoResponseCallback callback) {
 
-        if (context.getOAuth2TokenResponse() != null) {
-            new UserInfoRequestHandler(context, callback).execute();
-        } else {
+        getUserInfoAsync(context).addListener((userInfoResponse, exception) -> callback
+                .onUserInfoRequestCompleted(userInfoResponse, toServerException(exception)));
+    }
+
+    /**
+     * Returns a future of the userinfo response. Cancelling the future detaches it from the
+     * userinfo request.
+     *
+     * @param context Authentication context.
+     * @return Future of the UserInfoResponse.
+     */
+    public SdkFuture<UserInfoResponse> getUserInfoAsync(AuthenticationContext context) {
+
+        return getConfigurationAsync().thenCompose(configuration -> requestUserInfo(context));
+    }
+
+    private SdkFuture<UserInfoResponse> requestUserInfo(AuthenticationContext context) {
+
+        if (context.getOAuth2TokenResponse() == null) {
             Log.e(LOG_TAG, "User does not have a authenticated session");
+            return SdkFuture.failed(
+                    new ServerException("User does not have a authenticated session"));
+        }
+        SdkFuture<UserInfoResponse> future = new SdkFuture<>();
+        UserInfoRequestHandler userInfoRequestHandler = new UserInfoRequestHandler(context,
+                (userInfoResponse, ex) -> {
+                    if (ex != null) {
+                        future.completeExceptionally(ex);
+                    } else {
+                        future.complete(userInfoResponse);
+                    }
+                });
+        future.setCancelHandler(userInfoRequestHandler::cancel);
+        userInfoRequestHandler.setRequestOptions(RequestOptions.from(mConfiguration)).submit();
+        return future;
+    }
+
+    /**
+     * Refreshes the access token of the AuthenticationContext using its refresh token.
+     *
+     * @param context  Authentication context.
+     * @param callback TokenRefreshCallback.
+     */
+    public void refreshAccessToken(AuthenticationContext context,
+            TokenRefreshRequestHandler.TokenRefreshCallback callback) {
+
+        refreshAsync(context).addListener((oAuth2TokenResponse, exception) -> callback
+                .onTokenRefreshCompleted(oAuth2TokenResponse, toServerException(exception)));
+    }
+
+    /**
+     * Refreshes the access token of the AuthenticationContext using its refresh token and returns
+     * a future of the refreshed OAuth2TokenResponse.
+     *
+     * @param context Authentication context.
+     * @return Future of the OAuth2TokenResponse.
+     */
+    public SdkFuture<OAuth2TokenResponse> refreshAsync(AuthenticationContext context) {
+
+        return getConfigurationAsync()
+                .thenCompose(configuration -> requestTokenRefresh(context, -1));
+    }
+
+    /**
+     * Refreshes the access token, unless it is valid for at least the given time once the refresh
+     * is submitted.
+     *
+     * @param context     Authentication context.
+     * @param minValidity Minimum validity of the access token in milliseconds, or -1 to always
+     *                    refresh it.
+     * @return Future of the OAuth2TokenResponse.
+     */
+    private SdkFuture<OAuth2TokenResponse> requestTokenRefresh(AuthenticationContext context,
+            long minValidity) {
+
+        SdkFuture<OAuth2TokenResponse> future = new SdkFuture<>();
+        new TokenRefreshRequestHandler(getAuthorizationService(), context,
+                mConfiguration.getClientId(), (oAuth2TokenResponse, ex) -> {
+                    if (ex != null) {
+                        future.completeExceptionally(ex);
+                        return;
+                    }
+                    if (mSessionStore != null) {
+                        SessionHandler.save(mSessionStore, context);
+                    }
+                    future.complete(oAuth2TokenResponse);
+                }).setMinValidity(minValidity).submit();
+        return future;
+    }
+
+    private static ServerException toServerException(Exception exception) {
+
+        if (exception == null || exception instanceof ServerException) {
+            return (ServerException) exception;
         }
+        return new ServerException(exception.getMessage(), exception);
     }
 
     /**
-     * Disposes the authorization service and authentication context.
+     * Returns an access token which stays valid for at least the configured token refresh margin.
+     * The cached access token is returned right away while it is valid. Otherwise it is refreshed
+     * once, and all the callers waiting for it receive the result of that refresh.
+     *
+     * @param context  Authentication context.
+     * @param callback AccessTokenCallback.
+     */
+    public void getValidAccessToken(AuthenticationContext context,
+            TokenRefreshRequestHandler.AccessTokenCallback callback) {
+
+        OAuth2TokenResponse oAuth2TokenResponse = context.getOAuth2TokenResponse();
+        if (oAuth2TokenResponse == null) {
+            callback.onAccessTokenReceived(null,
+                    new ServerException("User does not have a authenticated session"));
+            return;
+        }
+        TokenRefreshScheduler scheduler = mTokenRefreshScheduler;
+        if (scheduler != null) {
+            // A background refresh which is overdue after the device slept is started now.
+            scheduler.checkRefresh();
+        }
+        Configuration configuration = mConfiguration;
+        if (configuration != null) {
+            deliverValidAccessToken(context, configuration.getTokenRefreshMargin(), callback);
+            return;
+        }
+        getConfigurationAsync().addListener((loadedConfiguration, exception) -> {
+            if (exception != null) {
+                callback.onAccessTokenReceived(null, toServerException(exception));
+            } else {
+                deliverValidAccessToken(context, loadedConfiguration.getTokenRefreshMargin(),
+                        callback);
+            }
+        });
+    }
+
+    private void deliverValidAccessToken(AuthenticationContext context, long refreshMargin,
+            TokenRefreshRequestHandler.AccessTokenCallback callback) {
+
+        String accessToken = context.getOAuth2TokenResponse().getValidAccessToken(refreshMargin);
+        if (accessToken != null) {
+            callback.onAccessTokenReceived(accessToken, null);
+            return;
+        }
+        // The access token is checked again when the refresh is submitted, in case a concurrent
+        // refresh completes in between.
+        requestTokenRefresh(context, refreshMargin).addListener((refreshedResponse, ex) -> {
+            if (ex != null) {
+                callback.onAccessTokenReceived(null, toServerException(ex));
+            } else {
+                callback.onAccessTokenReceived(refreshedResponse.getAccessToken(), null);
+            }
+        });
+    }
+
+    /**
+     * Starts refreshing the access token in the background, the configured token refresh margin
+     * before it expires.
+     *
+     * @param context  Authentication context.
+     * @param listener TokenRefreshListener.
+     */
+    public void startTokenRefresh(AuthenticationContext context,
+            TokenRefreshScheduler.TokenRefreshListener listener) {
+
+        getConfigurationAsync().addListener((configuration, exception) -> {
+            if (exception != null) {
+                Log.e(LOG_TAG, "Error while starting the token refresh", exception);
+                return;
+            }
+            TokenRefreshScheduler scheduler;
+            synchronized (this) {
+                if (mTokenRefreshScheduler == null) {
+                    mTokenRefreshScheduler = new TokenRefreshScheduler(this,
+                            configuration.getTokenRefreshMargin());
+                }
+                scheduler = mTokenRefreshScheduler;
+            }
+            scheduler.addListener(listener);
+            scheduler.start(context);
+        });
+    }
+
+    /**
+     * Stops refreshing the access token in the background.
+     */
+    public void stopTokenRefresh() {
+
+        TokenRefreshScheduler scheduler = mTokenRefreshScheduler;
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    /**
+     * Returns the configuration of this login service, or null if it is not loaded yet.
+     *
+     * @return Configuration.
+     */
+    Configuration getConfiguration() {
+
+        return mConfiguration;
+    }
+
+    /**
+     * Returns the OIDC discovery response held by this login service.
+     *
+     * @return OIDCDiscoveryResponse or null.
+     */
+    OIDCDiscoveryResponse getDiscoveryResponse() {
+
+        return mDiscoveryResponse.get();
+    }
+
+    /**
+     * Returns whether this login service can be released without interrupting the application,
+     * that is, it does not refresh an access token in the background and has no authorization
+     * flow in progress. A flow which the user abandoned in the browser never completes, so it
+     * counts only until it expires.
+     *
+     * @return True if the login service is idle.
+     */
+    boolean isIdle() {
+
+        TokenRefreshScheduler scheduler = mTokenRefreshScheduler;
+        if (scheduler != null && scheduler.isRunning()) {
+            return false;
+        }
+        return mPendingAuthorizations.get() == 0 || System.currentTimeMillis()
+                - mLastAuthorizationTime > Constants.AUTHORIZATION_FLOW_EXPIRY;
+    }
+
+    /**
+     * Releases the authorization service and drops the discovery response and the prepared
+     * authorization request. The login service stays usable, and acquires them again when needed.
+     * The stored session is kept.
+     */
+    void release() {
+
+        stopTokenRefresh();
+        mPreparedAuthorization.set(null);
+        mServiceConfiguration.set(null);
+        mDiscoveryResponse.set(null);
+        synchronized (this) {
+            if (mAuthorizationService != null) {
+                AuthorizationServiceHolder.release(mAuthorizationService);
+                mAuthorizationService = null;
+            }
+        }
+    }
+
+    /**
+     * Releases the authorization service and disposes the authentication context.
      */
     private void dispose(AuthenticationContext authenticationContext) {
 
-        if (mAuthorizationService != null) {
-            mAuthorizationService.dispose();
+        stopTokenRefresh();
+        if (mSessionStore != null) {
+            SessionHandler.clear(mSessionStore);
+        }
+        mPreparedAuthorization.set(null);
+        synchronized (this) {
+            if (mAuthorizationService != null) {
+                AuthorizationServiceHolder.release(mAuthorizationService);
+                mAuthorizationService = null;
+            }
         }
         authenticationContext.setOAuth2TokenResponse(null);
         authenticationContext.setOIDCDiscoveryResponse(null);
         authenticationContext.setUserInfoResponse(null);
         authenticationContext.setUser(null);
     }
+
+    /**
+     * AuthorizationRequest built ahead of the authorization, with the CustomTabsIntent which
+     * launches it.
+     */
+    private static class PreparedAuthorization {
+
+        private final OIDCDiscoveryResponse mDiscoveryResponse;
+        private final AuthorizationRequest mRequest;
+        private final CustomTabsIntent mCustomTabsIntent;
+
+        PreparedAuthorization(OIDCDiscoveryResponse discoveryResponse,
+                AuthorizationRequest request, CustomTabsIntent customTabsIntent) {
+
+            this.mDiscoveryResponse = discoveryResponse;
+            this.mRequest = request;
+            this.mCustomTabsIntent = customTabsIntent;
+        }
+    }
 }
@@ -20,19 +20,44 @@ package io.asgardeo.android.oidc.sdk.sso;
 
 import android.app.PendingIntent;
 import android.content.Context;
+import io.asgardeo.android.oidc.sdk.async.Cancellable;
+import io.asgardeo.android.oidc.sdk.async.SdkFuture;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
 import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
+import io.asgardeo.android.oidc.sdk.exception.ClientException;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.handler.SessionHandler;
+import io.asgardeo.android.oidc.sdk.handler.TokenRefreshRequestHandler;
 import io.asgardeo.android.oidc.sdk.handler.UserInfoRequestHandler;
+import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+import io.asgardeo.android.oidc.sdk.model.UserInfoResponse;
 
 /**
  * Provides the interface for authentication and logout mechanism.
+ *
+ * The methods added after the first release have default implementations, so that existing
+ * implementations of this interface keep compiling. The defaults delegate to the original methods
+ * where they can. Otherwise the returned future fails with a ClientException, or the callback or
+ * listener is notified with a ServerException. The operations which can be cancelled are the ones
+ * returning a {@link Cancellable} or an {@link SdkFuture}.
  */
 public interface LoginService {
 
+    /**
+     * Prepares the authorization flow so that a later call to
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)} does not have to wait for the
+     * discovery request or the browser to start. Applications may call this while showing the
+     * splash screen. The default implementation does nothing.
+     */
+    default void prepare() {
+
+    }
+
     /**
      * Handles authorization flow and if callUserInfo value is true, then userinfo request will
      * be made to the IdentityServer after successful token exchange. Else if callUserInfo value
-     * is false, SDK will not make any request to UserInfo Endpoint after token flow. Application can call
-     * userinfo endpoint explicitly by calling
+     * is false, SDK will not make any request to UserInfo Endpoint after token flow. Application
+     * can call userinfo endpoint explicitly by calling
      * {@link #getUserInfo(AuthenticationContext, UserInfoRequestHandler.UserInfoResponseCallback)}
      *
      * @param successIntent Success intent.
@@ -42,6 +67,88 @@ public interface LoginService {
      */
     void authorize(PendingIntent successIntent, PendingIntent failureIntent, Boolean callUserInfo);
 
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)}. If callUserInfo is true and a
+     * listener is given, the success intent is sent with the User derived from the ID token, and
+     * the listener is notified when the userinfo response arrives. The default implementation
+     * delegates to {@link #authorize(PendingIntent, PendingIntent, Boolean)}, which sends the
+     * success intent after the userinfo response arrives, and notifies a listener with an error
+     * since there is no later update. Its handle does not cancel the flow.
+     *
+     * @param successIntent    Success intent.
+     * @param failureIntent    Failure Intent.
+     * @param callUserInfo     Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener Listener of the userinfo response, or null.
+     * @return Handle to cancel the authorization flow.
+     */
+    default Cancellable authorize(PendingIntent successIntent, PendingIntent failureIntent,
+            Boolean callUserInfo, UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
+        if (userInfoListener != null) {
+            userInfoListener.onUserInfoUpdated(null, new ServerException(
+                    "Userinfo listeners are not supported by this LoginService"));
+        }
+        authorize(successIntent, failureIntent, callUserInfo);
+        return () -> false;
+    }
+
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean)} and returns a future which
+     * completes with the AuthenticationContext once the authentication is successful. The future
+     * of the default implementation fails with a ClientException.
+     *
+     * @param successIntent Success intent.
+     * @param failureIntent Failure Intent.
+     * @param callUserInfo  Whether to call the UserInfo endpoint after token exchange.
+     * @return Future of the AuthenticationContext.
+     */
+    default SdkFuture<AuthenticationContext> authorizeAsync(PendingIntent successIntent,
+            PendingIntent failureIntent, Boolean callUserInfo) {
+
+        return SdkFuture.failed(new ClientException(
+                "Authorization futures are not supported by this LoginService"));
+    }
+
+    /**
+     * Handles authorization flow in the same way as
+     * {@link #authorize(PendingIntent, PendingIntent, Boolean,
+     * UserInfoRequestHandler.UserInfoUpdateListener)} and returns a future of the
+     * AuthenticationContext. The default implementation delegates to
+     * {@link #authorizeAsync(PendingIntent, PendingIntent, Boolean)}, and notifies a listener with
+     * an error in the same way as {@link #authorize(PendingIntent, PendingIntent, Boolean,
+     * UserInfoRequestHandler.UserInfoUpdateListener)}.
+     *
+     * @param successIntent    Success intent.
+     * @param failureIntent    Failure Intent.
+     * @param callUserInfo     Whether to call the UserInfo endpoint after token exchange.
+     * @param userInfoListener Listener of the userinfo response, or null.
+     * @return Future of the AuthenticationContext.
+     */
+    default SdkFuture<AuthenticationContext> authorizeAsync(PendingIntent successIntent,
+            PendingIntent failureIntent, Boolean callUserInfo,
+            UserInfoRequestHandler.UserInfoUpdateListener userInfoListener) {
+
+        if (userInfoListener != null) {
+            userInfoListener.onUserInfoUpdated(null, new ServerException(
+                    "Userinfo listeners are not supported by this LoginService"));
+        }
+        return authorizeAsync(successIntent, failureIntent, callUserInfo);
+    }
+
+    /**
+     * Restores the AuthenticationContext stored by the SessionStore of a previous login, so that a
+     * returning user does not have to login again. The callback receives null if there is no
+     * stored session, which is always the case for the default implementation.
+     *
+     * @param callback Callback.
+     */
+    default void restoreSession(SessionHandler.SessionRestoreCallback callback) {
+
+        callback.onSessionRestored(null);
+    }
+
     /**
      * Handles the call to UserInfo endpoint.
      *
@@ -51,6 +158,119 @@ public interface LoginService {
     void getUserInfo(AuthenticationContext context,
             UserInfoRequestHandler.UserInfoResponseCallback callback);
 
+    /**
+     * Returns a future of the response of the UserInfo endpoint. Cancelling the future cancels the
+     * userinfo request. The default implementation delegates to
+     * {@link #getUserInfo(AuthenticationContext, UserInfoRequestHandler.UserInfoResponseCallback)},
+     * and its future does not cancel the request.
+     *
+     * @param context Authentication context.
+     * @return Future of the UserInfoResponse.
+     */
+    default SdkFuture<UserInfoResponse> getUserInfoAsync(AuthenticationContext context) {
+
+        SdkFuture<UserInfoResponse> future = new SdkFuture<>();
+        getUserInfo(context, (userInfoResponse, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                future.complete(userInfoResponse);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Refreshes the access token of the AuthenticationContext using its refresh token. The
+     * OAuth2TokenResponse of the AuthenticationContext is updated in place. The default
+     * implementation notifies the callback with a ServerException.
+     *
+     * @param context  Authentication context.
+     * @param callback Callback.
+     */
+    default void refreshAccessToken(AuthenticationContext context,
+            TokenRefreshRequestHandler.TokenRefreshCallback callback) {
+
+        callback.onTokenRefreshCompleted(null,
+                new ServerException("Token refresh is not supported by this LoginService"));
+    }
+
+    /**
+     * Refreshes the access token of the AuthenticationContext and returns a future of the
+     * refreshed OAuth2TokenResponse. The default implementation delegates to
+     * {@link #refreshAccessToken(AuthenticationContext,
+     * TokenRefreshRequestHandler.TokenRefreshCallback)}.
+     *
+     * @param context Authentication context.
+     * @return Future of the OAuth2TokenResponse.
+     */
+    default SdkFuture<OAuth2TokenResponse> refreshAsync(AuthenticationContext context) {
+
+        SdkFuture<OAuth2TokenResponse> future = new SdkFuture<>();
+        refreshAccessToken(context, (oAuth2TokenResponse, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                future.complete(oAuth2TokenResponse);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Returns a valid access token of the AuthenticationContext. The cached access token is
+     * returned without any request while it is valid. Otherwise the access token is refreshed once
+     * for all the concurrent callers. The default implementation refreshes the access token through
+     * {@link #refreshAccessToken(AuthenticationContext,
+     * TokenRefreshRequestHandler.TokenRefreshCallback)} for each caller, the default token refresh
+     * margin before it expires.
+     *
+     * @param context  Authentication context.
+     * @param callback Callback.
+     */
+    default void getValidAccessToken(AuthenticationContext context,
+            TokenRefreshRequestHandler.AccessTokenCallback callback) {
+
+        OAuth2TokenResponse oAuth2TokenResponse = context.getOAuth2TokenResponse();
+        if (oAuth2TokenResponse == null) {
+            callback.onAccessTokenReceived(null,
+                    new ServerException("User does not have a authenticated session"));
+            return;
+        }
+        String accessToken =
+                oAuth2TokenResponse.getValidAccessToken(Constants.DEFAULT_TOKEN_REFRESH_MARGIN);
+        if (accessToken != null) {
+            callback.onAccessTokenReceived(accessToken, null);
+            return;
+        }
+        refreshAccessToken(context, (refreshedResponse, ex) -> callback.onAccessTokenReceived(
+                ex != null ? null : refreshedResponse.getAccessToken(), ex));
+    }
+
+    /**
+     * Starts refreshing the access token of the AuthenticationContext in the background before it
+     * expires. The default implementation notifies the listener with a ServerException.
+     *
+     * @param context  Authentication context.
+     * @param listener Listener notified after each refresh, or null.
+     */
+    default void startTokenRefresh(AuthenticationContext context,
+            TokenRefreshScheduler.TokenRefreshListener listener) {
+
+        if (listener != null) {
+            listener.onTokenRefreshFailed(context, new ServerException(
+                    "Background token refresh is not supported by this LoginService"));
+        }
+    }
+
+    /**
+     * Stops refreshing the access token in the background. The default implementation does
+     * nothing.
+     */
+    default void stopTokenRefresh() {
+
+    }
+
     /**
      * Handles logout flow.
      *
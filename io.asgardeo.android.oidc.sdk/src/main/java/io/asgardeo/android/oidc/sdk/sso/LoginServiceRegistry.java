@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.sso;
+
+import android.content.Context;
+import android.util.Log;
+import io.asgardeo.android.oidc.sdk.config.Configuration;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.context.SessionStore;
+import io.asgardeo.android.oidc.sdk.handler.JWKSCache;
+import io.asgardeo.android.oidc.sdk.handler.OIDCDiscoveryCache;
+import io.asgardeo.android.oidc.sdk.model.OIDCDiscoveryResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a DefaultLoginService per tenant of an application which logs in to several
+ * organizations, keyed by the discovery endpoint and the client id of the configuration.
+ *
+ * A login service keeps the discovery response and the prepared authorization request of its
+ * tenant, so switching back to a tenant which was used before does not wait for them. The
+ * discovery documents, the JWKS and the AuthorizationService are shared by all the tenants of the
+ * same Identity Server through the process wide caches. At most
+ * {@link Constants#MAX_LOGIN_SERVICES} login services are kept. Beyond that the least recently
+ * used idle login services are released, and the in-memory cache entries of their Identity Server
+ * are dropped once no other tenant uses them. The disk copies of the entries are kept. Busy login
+ * services are kept beyond the maximum, up to {@link Constants#LOGIN_SERVICES_HARD_LIMIT}, after
+ * which the least recently used ones are released even if they are busy. A released login service
+ * stays usable, but stops refreshing its access token in the background.
+ */
+public class LoginServiceRegistry {
+
+    private static final String LOG_TAG = "LoginServiceRegistry";
+    private static LoginServiceRegistry sInstance;
+
+    private final Context mContext;
+    private final int mMaxLoginServices;
+    private final int mHardLimit;
+    // Access ordered, so that the eldest entry is the least recently used login service.
+    private final LinkedHashMap<String, DefaultLoginService> mLoginServices =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private LoginServiceRegistry(Context context, int maxLoginServices, int hardLimit) {
+
+        this.mContext = context;
+        this.mMaxLoginServices = maxLoginServices;
+        this.mHardLimit = hardLimit;
+    }
+
+    /**
+     * Returns the process wide instance of the LoginServiceRegistry.
+     *
+     * @param context Context.
+     * @return LoginServiceRegistry instance.
+     */
+    public static synchronized LoginServiceRegistry getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new LoginServiceRegistry(context.getApplicationContext(),
+                    Constants.MAX_LOGIN_SERVICES, Constants.LOGIN_SERVICES_HARD_LIMIT);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the login service of the tenant of the configuration, creating it if needed.
+     *
+     * @param configuration Configuration of the tenant.
+     * @return DefaultLoginService.
+     */
+    public DefaultLoginService getLoginService(Configuration configuration) {
+
+        return getLoginService(configuration, null);
+    }
+
+    /**
+     * Returns the login service of the tenant of the configuration, creating it with the given
+     * SessionStore if needed. The SessionStore is not changed for a login service which exists.
+     *
+     * @param configuration Configuration of the tenant.
+     * @param sessionStore  SessionStore of the tenant, or null.
+     * @return DefaultLoginService.
+     */
+    public DefaultLoginService getLoginService(Configuration configuration,
+            SessionStore sessionStore) {
+
+        String key = getKey(configuration);
+        List<DefaultLoginService> evicted;
+        DefaultLoginService loginService;
+        synchronized (this) {
+            loginService = mLoginServices.get(key);
+            if (loginService != null) {
+                return loginService;
+            }
+            loginService = new DefaultLoginService(mContext, configuration, sessionStore);
+            mLoginServices.put(key, loginService);
+            evicted = evictLoginServices(key);
+        }
+        for (DefaultLoginService evictedLoginService : evicted) {
+            release(evictedLoginService);
+        }
+        return loginService;
+    }
+
+    /**
+     * Removes and releases the login service of the tenant of the configuration.
+     *
+     * @param configuration Configuration of the tenant.
+     */
+    public void remove(Configuration configuration) {
+
+        DefaultLoginService loginService;
+        synchronized (this) {
+            loginService = mLoginServices.remove(getKey(configuration));
+        }
+        if (loginService != null) {
+            release(loginService);
+        }
+    }
+
+    /**
+     * Removes and releases all the login services.
+     */
+    public void clear() {
+
+        List<DefaultLoginService> loginServices;
+        synchronized (this) {
+            loginServices = new ArrayList<>(mLoginServices.values());
+            mLoginServices.clear();
+        }
+        for (DefaultLoginService loginService : loginServices) {
+            release(loginService);
+        }
+    }
+
+    /**
+     * Removes the least recently used idle login services until at most the maximum number of
+     * login services are kept. Login services which are busy, e.g. refresh an access token in the
+     * background, are kept beyond the maximum, but not beyond the hard limit.
+     *
+     * @param keptKey Key of the login service which is just added.
+     * @return Removed login services.
+     */
+    private List<DefaultLoginService> evictLoginServices(String keptKey) {
+
+        List<DefaultLoginService> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, DefaultLoginService>> iterator =
+                mLoginServices.entrySet().iterator();
+        while (mLoginServices.size() > mMaxLoginServices && iterator.hasNext()) {
+            Map.Entry<String, DefaultLoginService> entry = iterator.next();
+            if (!entry.getKey().equals(keptKey) && entry.getValue().isIdle()) {
+                iterator.remove();
+                evicted.add(entry.getValue());
+                Log.d(LOG_TAG, "Evicted the idle login service of " + entry.getKey());
+            }
+        }
+        iterator = mLoginServices.entrySet().iterator();
+        while (mLoginServices.size() > mHardLimit && iterator.hasNext()) {
+            Map.Entry<String, DefaultLoginService> entry = iterator.next();
+            if (!entry.getKey().equals(keptKey)) {
+                iterator.remove();
+                evicted.add(entry.getValue());
+                Log.w(LOG_TAG, "Evicted the busy login service of " + entry.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    private void release(DefaultLoginService loginService) {
+
+        Configuration configuration = loginService.getConfiguration();
+        OIDCDiscoveryResponse discoveryResponse = loginService.getDiscoveryResponse();
+        loginService.release();
+        if (configuration == null) {
+            return;
+        }
+        String discoveryEndpoint = configuration.getDiscoveryUri().toString();
+        synchronized (this) {
+            for (DefaultLoginService other : mLoginServices.values()) {
+                Configuration otherConfiguration = other.getConfiguration();
+                if (otherConfiguration != null && discoveryEndpoint
+                        .equals(otherConfiguration.getDiscoveryUri().toString())) {
+                    // Another tenant of the same Identity Server still uses the cache entries.
+                    return;
+                }
+            }
+        }
+        OIDCDiscoveryCache.getInstance(mContext).evict(discoveryEndpoint);
+        if (discoveryResponse != null && discoveryResponse.getJwksUri() != null) {
+            JWKSCache.getInstance(mContext).evict(discoveryResponse.getJwksUri().toString());
+        }
+    }
+
+    private static String getKey(Configuration configuration) {
+
+        return configuration.getDiscoveryUri() + " " + configuration.getClientId();
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.sso;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import net.openid.appauth.AuthorizationException;
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import io.asgardeo.android.oidc.sdk.context.AuthenticationContext;
+import io.asgardeo.android.oidc.sdk.exception.ServerException;
+import io.asgardeo.android.oidc.sdk.model.OAuth2TokenResponse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Refreshes the access token of an AuthenticationContext in the background, a configurable margin
+ * before it expires, so that the application always finds a valid access token in the
+ * AuthenticationContext.
+ *
+ * The refresh time is kept as a wall clock time. Since the main thread handler does not count the
+ * time the device is asleep, the scheduler wakes up at least every
+ * {@link Constants#TOKEN_REFRESH_CHECK_INTERVAL} to compare it with the wall clock, and
+ * {@link #checkRefresh()} lets a caller check it right away, e.g. when the application asks for an
+ * access token.
+ */
+public class TokenRefreshScheduler {
+
+    private static final String LOG_TAG = "TokenRefreshScheduler";
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mRefreshTask = this::checkRefresh;
+    private final List<TokenRefreshListener> mListeners = new CopyOnWriteArrayList<>();
+    private final LoginService mLoginService;
+    private final long mRefreshMargin;
+    private volatile AuthenticationContext mAuthenticationContext;
+    // Wall clock time at which the access token is refreshed, or 0 if no refresh is scheduled.
+    private long mRefreshTime;
+    private long mRetryInterval = Constants.TOKEN_REFRESH_RETRY_INTERVAL;
+    private boolean mRefreshing;
+
+    /**
+     * Creates a scheduler which refreshes the access token using the given LoginService.
+     *
+     * @param loginService  LoginService.
+     * @param refreshMargin Time in milliseconds before the expiry of the access token at which it
+     *                      is refreshed.
+     */
+    public TokenRefreshScheduler(LoginService loginService, long refreshMargin) {
+
+        this.mLoginService = loginService;
+        this.mRefreshMargin = refreshMargin;
+    }
+
+    /**
+     * Starts refreshing the access token of the AuthenticationContext ahead of its expiry.
+     *
+     * @param authenticationContext AuthenticationContext.
+     */
+    public synchronized void start(AuthenticationContext authenticationContext) {
+
+        mAuthenticationContext = authenticationContext;
+        mRetryInterval = Constants.TOKEN_REFRESH_RETRY_INTERVAL;
+        mRefreshing = false;
+        schedule();
+    }
+
+    /**
+     * Stops refreshing the access token.
+     */
+    public synchronized void stop() {
+
+        mHandler.removeCallbacks(mRefreshTask);
+        mAuthenticationContext = null;
+        mRefreshTime = 0;
+        mRefreshing = false;
+    }
+
+    /**
+     * Refreshes the access token right away if its refresh time has passed, e.g. while the device
+     * was asleep. Otherwise the refresh stays scheduled.
+     */
+    public void checkRefresh() {
+
+        AuthenticationContext authenticationContext;
+        synchronized (this) {
+            authenticationContext = mAuthenticationContext;
+            if (authenticationContext == null || mRefreshTime == 0 || mRefreshing) {
+                return;
+            }
+            long delay = mRefreshTime - System.currentTimeMillis();
+            if (delay > 0) {
+                post(delay);
+                return;
+            }
+            mHandler.removeCallbacks(mRefreshTask);
+            mRefreshing = true;
+        }
+        refresh(authenticationContext);
+    }
+
+    /**
+     * Returns whether the access token is being refreshed.
+     *
+     * @return True if the scheduler is started.
+     */
+    public boolean isRunning() {
+
+        return mAuthenticationContext != null;
+    }
+
+    /**
+     * Adds a listener to be notified when the access token is refreshed.
+     *
+     * @param listener TokenRefreshListener.
+     */
+    public void addListener(TokenRefreshListener listener) {
+
+        if (listener != null && !mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener TokenRefreshListener.
+     */
+    public void removeListener(TokenRefreshListener listener) {
+
+        mListeners.remove(listener);
+    }
+
+    // Called while holding the lock of the scheduler.
+    private void schedule() {
+
+        mHandler.removeCallbacks(mRefreshTask);
+        mRefreshTime = 0;
+        OAuth2TokenResponse oAuth2TokenResponse = mAuthenticationContext != null
+                ? mAuthenticationContext.getOAuth2TokenResponse() : null;
+        if (oAuth2TokenResponse == null || oAuth2TokenResponse.getRefreshToken() == null
+                || oAuth2TokenResponse.getAccessTokenExpirationTime() == null) {
+            Log.d(LOG_TAG, "Access token cannot be refreshed in the background");
+            return;
+        }
+        mRefreshTime = oAuth2TokenResponse.getAccessTokenExpirationTime() - mRefreshMargin;
+        long delay = mRefreshTime - System.currentTimeMillis();
+        Log.d(LOG_TAG, "Access token will be refreshed in " + Math.max(delay, 0) + " ms");
+        post(delay);
+    }
+
+    // Called while holding the lock of the scheduler.
+    private void post(long delay) {
+
+        mHandler.removeCallbacks(mRefreshTask);
+        mHandler.postDelayed(mRefreshTask,
+                Math.min(Math.max(delay, 0), Constants.TOKEN_REFRESH_CHECK_INTERVAL));
+    }
+
+    private void refresh(AuthenticationContext authenticationContext) {
+
+        mLoginService.refreshAccessToken(authenticationContext, (oAuth2TokenResponse, ex) -> {
+            synchronized (this) {
+                if (authenticationContext != mAuthenticationContext) {
+                    // The scheduler was stopped or restarted while refreshing.
+                    return;
+                }
+                mRefreshing = false;
+                if (ex != null) {
+                    retry(authenticationContext.getOAuth2TokenResponse(), ex);
+                } else {
+                    mRetryInterval = Constants.TOKEN_REFRESH_RETRY_INTERVAL;
+                    schedule();
+                }
+            }
+            if (ex != null) {
+                for (TokenRefreshListener listener : mListeners) {
+                    listener.onTokenRefreshFailed(authenticationContext, ex);
+                }
+            } else {
+                for (TokenRefreshListener listener : mListeners) {
+                    listener.onTokenRefreshed(authenticationContext);
+                }
+            }
+        });
+    }
+
+    // Called while holding the lock of the scheduler.
+    private void retry(OAuth2TokenResponse oAuth2TokenResponse, ServerException ex) {
+
+        if (oAuth2TokenResponse == null || oAuth2TokenResponse.getRefreshToken() == null) {
+            mRefreshTime = 0;
+            return;
+        }
+        if (isRejected(ex)) {
+            // The token endpoint answered with an OAuth error such as invalid_grant, so the same
+            // refresh token would be rejected again.
+            Log.d(LOG_TAG, "Refresh token is rejected. The access token is not refreshed again");
+            mRefreshTime = 0;
+            return;
+        }
+        // A transport failure is retried while there is a refresh token, also after the access
+        // token has expired, with the interval doubling up to a maximum.
+        long delay = mRetryInterval;
+        mRetryInterval = Math.min(mRetryInterval * 2, Constants.TOKEN_REFRESH_MAX_RETRY_INTERVAL);
+        mRefreshTime = System.currentTimeMillis() + delay;
+        Log.d(LOG_TAG, "Access token refresh will be retried in " + delay + " ms");
+        post(delay);
+    }
+
+    private static boolean isRejected(ServerException ex) {
+
+        Throwable cause = ex.getCause();
+        return cause instanceof AuthorizationException && ((AuthorizationException) cause).type
+                == AuthorizationException.TYPE_OAUTH_TOKEN_ERROR;
+    }
+
+    /**
+     * Listener notified about the background token refresh.
+     */
+    public interface TokenRefreshListener {
+
+        /**
+         * Called when the access token of the AuthenticationContext is refreshed.
+         *
+         * @param authenticationContext AuthenticationContext with the refreshed tokens.
+         */
+        void onTokenRefreshed(AuthenticationContext authenticationContext);
+
+        /**
+         * Called when the access token could not be refreshed. A transport failure is retried,
+         * while a refresh token rejected by the token endpoint is not sent again until the
+         * refresh is started again, e.g. for the AuthenticationContext of a new login.
+         *
+         * @param authenticationContext AuthenticationContext.
+         * @param ex                    ServerException.
+         */
+        void onTokenRefreshFailed(AuthenticationContext authenticationContext, ServerException ex);
+    }
+}
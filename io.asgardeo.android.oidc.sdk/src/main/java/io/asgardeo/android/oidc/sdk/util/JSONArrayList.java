@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.util;
+
+import org.json.JSONArray;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only List view of a JSONArray. Items are converted as in {@link JSONObjectMap} when they
+ * are read. The view is serialized as an ArrayList copy.
+ */
+class JSONArrayList extends AbstractList<Object> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -1517302519614781263L;
+
+    private final transient JSONArray mArray;
+
+    JSONArrayList(JSONArray array) {
+
+        this.mArray = array;
+    }
+
+    @Override
+    public Object get(int index) {
+
+        if (index < 0 || index >= mArray.length()) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + mArray.length());
+        }
+        return JSONObjectMap.wrap(mArray.opt(index));
+    }
+
+    @Override
+    public int size() {
+
+        return mArray.length();
+    }
+
+    private Object writeReplace() {
+
+        return new ArrayList<>(this);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only Map view of a JSONObject. Nothing is copied: nested objects and arrays are wrapped in
+ * views when they are read, and JSONObject.NULL is read as null. The view is serialized as a
+ * HashMap copy, since a JSONObject is not serializable.
+ */
+class JSONObjectMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 4398301695427181637L;
+
+    private final transient JSONObject mObject;
+
+    JSONObjectMap(JSONObject object) {
+
+        this.mObject = object;
+    }
+
+    /**
+     * Returns the Java view of a value of a JSONObject or a JSONArray.
+     *
+     * @param value JSON value.
+     * @return Map for an object, List for an array, null for JSONObject.NULL, or the value.
+     */
+    static Object wrap(Object value) {
+
+        if (value instanceof JSONObject) {
+            return new JSONObjectMap((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            return new JSONArrayList((JSONArray) value);
+        } else if (JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(Object key) {
+
+        return key instanceof String ? wrap(mObject.opt((String) key)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+
+        return key instanceof String && mObject.has((String) key);
+    }
+
+    @Override
+    public int size() {
+
+        return mObject.length();
+    }
+
+    private Object writeReplace() {
+
+        return new HashMap<>(this);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+
+                Iterator<String> keys = mObject.keys();
+                return new Iterator<Entry<String, Object>>() {
+
+                    @Override
+                    public boolean hasNext() {
+
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+
+                        String key = keys.next();
+                        return new SimpleImmutableEntry<>(key, wrap(mObject.opt(key)));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return mObject.length();
+            }
+        };
+    }
+}
@@ -18,15 +18,23 @@
 
 package io.asgardeo.android.oidc.sdk.util;
 
+import android.util.JsonReader;
+
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +45,16 @@ import java.util.Map;
  */
 public class Util {
 
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_BOOLEAN = 2;
+    private static final byte VALUE_INTEGER = 3;
+    private static final byte VALUE_LONG = 4;
+    private static final byte VALUE_DOUBLE = 5;
+    private static final byte VALUE_DATE = 6;
+    private static final byte VALUE_MAP = 7;
+    private static final byte VALUE_LIST = 8;
+
     /**
      * Handles adding query parameters to URL.
      *
@@ -84,6 +102,19 @@ public class Util {
         return queryAppendedUrl;
     }
 
+    /**
+     * Returns a read-only Map view of the JSONObject. Nested objects and arrays are converted only
+     * when they are read, so reading a few values of a large JSONObject copies nothing. Use
+     * {@link #toMap(JSONObject)} for a copy which does not change with the JSONObject.
+     *
+     * @param object JSONObject.
+     * @return Map view of the JSONObject.
+     */
+    public static Map<String, Object> asMap(JSONObject object) {
+
+        return new JSONObjectMap(object);
+    }
+
     /**
      * Util method to convert JSONObject to Map.
      *
@@ -92,7 +123,7 @@ public class Util {
      * @throws JSONException
      */
     public static Map<String, Object> toMap(JSONObject object) throws JSONException {
-        Map<String, Object> map = new HashMap<String, Object>();
+        Map<String, Object> map = new HashMap<String, Object>(object.length() * 4 / 3 + 1);
         Iterator<String> keysItr = object.keys();
         while (keysItr.hasNext()) {
             String key = keysItr.next();
@@ -107,8 +138,28 @@ public class Util {
         return map;
     }
 
+    /**
+     * Returns the hex encoded SHA-256 hash of the value, to be used as a file name.
+     *
+     * @param value Value.
+     * @return Hash of the value.
+     */
+    public static String hash(String value) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest(value.getBytes(Charset.forName("UTF-8")))) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
     private static List<Object> toList(JSONArray array) throws JSONException {
-        List<Object> list = new ArrayList<Object>();
+        List<Object> list = new ArrayList<Object>(array.length());
         for (int i = 0; i < array.length(); i++) {
             Object value = array.get(i);
             if (value instanceof JSONArray) {
@@ -120,4 +171,188 @@ public class Util {
         }
         return list;
     }
+
+    /**
+     * Writes a nullable string in the compact binary form used by the session store.
+     *
+     * @param out   DataOutput.
+     * @param value String or null.
+     * @throws IOException
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(Charset.forName("UTF-8"));
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a nullable string written by {@link #writeString(DataOutput, String)}.
+     *
+     * @param in DataInput.
+     * @return String or null.
+     * @throws IOException
+     */
+    public static String readString(DataInput in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Writes a claim value in the compact binary form used by the session store. Maps, lists,
+     * strings, booleans, numbers and dates are written as they are, any other value is written as
+     * its string representation.
+     *
+     * @param out   DataOutput.
+     * @param value Claim value.
+     * @throws IOException
+     */
+    public static void writeValue(DataOutput out, Object value) throws IOException {
+
+        if (value == null || JSONObject.NULL.equals(value)) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Number) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            out.writeByte(VALUE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(VALUE_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(VALUE_LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Reads a claim value written by {@link #writeValue(DataOutput, Object)}.
+     *
+     * @param in DataInput.
+     * @return Claim value.
+     * @throws IOException
+     */
+    public static Object readValue(DataInput in) throws IOException {
+
+        byte type = in.readByte();
+        switch (type) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return readString(in);
+            case VALUE_BOOLEAN:
+                return in.readBoolean();
+            case VALUE_INTEGER:
+                return in.readInt();
+            case VALUE_LONG:
+                return in.readLong();
+            case VALUE_DOUBLE:
+                return in.readDouble();
+            case VALUE_DATE:
+                return new Date(in.readLong());
+            case VALUE_MAP:
+                int size = in.readInt();
+                Map<String, Object> map = new HashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                return map;
+            case VALUE_LIST:
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Reads the next JSON value from the reader into plain Java objects. Objects are read into
+     * maps, arrays into lists, and numbers into Integer, Long or Double as JSONObject does.
+     *
+     * @param reader JsonReader.
+     * @return Value, or null for a JSON null.
+     * @throws IOException
+     */
+    public static Object readJsonValue(JsonReader reader) throws IOException {
+
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new HashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    map.put(reader.nextName(), readJsonValue(reader));
+                }
+                reader.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readJsonValue(reader));
+                }
+                reader.endArray();
+                return list;
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NUMBER:
+                return parseNumber(reader.nextString());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    private static Number parseNumber(String number) {
+
+        if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+            try {
+                long value = Long.parseLong(number);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                // Larger than a long. Read it as a double below.
+            }
+        }
+        return Double.parseDouble(number);
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.http;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the state transitions of the {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+    // Without jitter, the breaker stays open for half of its open duration.
+    private static final long FIRST_OPEN_TIME = Constants.CIRCUIT_BREAKER_OPEN_DURATION / 2;
+
+    private TestCircuitBreaker mCircuitBreaker;
+
+    @Before
+    public void setUp() {
+
+        mCircuitBreaker = new TestCircuitBreaker();
+    }
+
+    @Test
+    public void allowsRequestsBelowTheFailureThreshold() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD - 1);
+        assertEquals(CircuitBreaker.Permit.ALLOWED, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        assertEquals(CircuitBreaker.Permit.DENIED, mCircuitBreaker.allowRequest());
+        mCircuitBreaker.advance(FIRST_OPEN_TIME - 1);
+        assertEquals(CircuitBreaker.Permit.DENIED, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD - 1);
+        mCircuitBreaker.onSuccess();
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD - 1);
+        assertEquals(CircuitBreaker.Permit.ALLOWED, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void letsASingleTrialThroughWhenHalfOpen() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        mCircuitBreaker.advance(FIRST_OPEN_TIME);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+        assertEquals(CircuitBreaker.Permit.DENIED, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void closesWhenTheTrialSucceeds() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        mCircuitBreaker.advance(FIRST_OPEN_TIME);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+        mCircuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.Permit.ALLOWED, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void doublesTheOpenTimeWhenTheTrialFails() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        mCircuitBreaker.advance(FIRST_OPEN_TIME);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+        mCircuitBreaker.onFailure(true);
+
+        mCircuitBreaker.advance(2 * FIRST_OPEN_TIME - 1);
+        assertEquals(CircuitBreaker.Permit.DENIED, mCircuitBreaker.allowRequest());
+        mCircuitBreaker.advance(1);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void capsTheOpenTime() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        long openTime = FIRST_OPEN_TIME;
+        for (int i = 0; i < 10; i++) {
+            mCircuitBreaker.advance(openTime);
+            assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+            mCircuitBreaker.onFailure(true);
+            openTime = Math.min(openTime * 2, Constants.CIRCUIT_BREAKER_MAX_OPEN_DURATION / 2);
+        }
+        mCircuitBreaker.advance(Constants.CIRCUIT_BREAKER_MAX_OPEN_DURATION / 2);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void abandonedTrialLetsAnotherTrialThrough() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        mCircuitBreaker.advance(FIRST_OPEN_TIME);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+        mCircuitBreaker.onAbandoned(true);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void abandonedRequestDoesNotReleaseTheTrial() {
+
+        failRequests(Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        mCircuitBreaker.advance(FIRST_OPEN_TIME);
+        assertEquals(CircuitBreaker.Permit.TRIAL, mCircuitBreaker.allowRequest());
+        // A request allowed before the breaker opened is cancelled.
+        mCircuitBreaker.onAbandoned(false);
+        assertEquals(CircuitBreaker.Permit.DENIED, mCircuitBreaker.allowRequest());
+    }
+
+    private void failRequests(int count) {
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(CircuitBreaker.Permit.ALLOWED, mCircuitBreaker.allowRequest());
+            mCircuitBreaker.onFailure(false);
+        }
+    }
+
+    /**
+     * CircuitBreaker with a manual clock and without jitter.
+     */
+    private static class TestCircuitBreaker extends CircuitBreaker {
+
+        private long mNow = 1000L;
+
+        TestCircuitBreaker() {
+
+            super(new Random() {
+
+                @Override
+                public double nextDouble() {
+
+                    return 0;
+                }
+            });
+        }
+
+        void advance(long millis) {
+
+            mNow += millis;
+        }
+
+        @Override
+        long currentTimeMillis() {
+
+            return mNow;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.model;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.asgardeo.android.oidc.sdk.constant.Constants;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that the {@link OIDCDiscoveryResponse} parses the discovery document once into its typed
+ * fields, and keeps the remaining properties.
+ */
+public class OIDCDiscoveryResponseTest {
+
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+    private static final String AUTHORIZATION_ENDPOINT = "https://localhost:9443/oauth2/authorize";
+    private static final String TOKEN_ENDPOINT = "https://localhost:9443/oauth2/token";
+    private static final String USERINFO_ENDPOINT = "https://localhost:9443/oauth2/userinfo";
+    private static final String LOGOUT_ENDPOINT = "https://localhost:9443/oidc/logout";
+    private static final String JWKS_URI = "https://localhost:9443/oauth2/jwks";
+    private static final String REVOCATION_ENDPOINT = "https://localhost:9443/oauth2/revoke";
+
+    private CountingJSONObject mDocument;
+
+    @Before
+    public void setUp() throws JSONException {
+
+        mDocument = new CountingJSONObject();
+        mDocument.put(Constants.ISSUER, ISSUER);
+        mDocument.put(Constants.AUTHORIZATION_ENDPOINT, AUTHORIZATION_ENDPOINT);
+        mDocument.put(Constants.TOKEN_ENDPOINT, TOKEN_ENDPOINT);
+        mDocument.put(Constants.USERINFO_ENDPOINT, USERINFO_ENDPOINT);
+        mDocument.put(Constants.LOGOUT_ENDPOINT, LOGOUT_ENDPOINT);
+        mDocument.put(Constants.JWKS_URI, JWKS_URI);
+        mDocument.put("revocation_endpoint", REVOCATION_ENDPOINT);
+        mDocument.put("scopes_supported", new JSONArray().put("openid").put("profile"));
+        mDocument.put("request_parameter_supported", true);
+        mDocument.put("registration_endpoint", JSONObject.NULL);
+    }
+
+    @Test
+    public void readsTheTypedFields() {
+
+        OIDCDiscoveryResponse response = new OIDCDiscoveryResponse(mDocument);
+        assertEquals(ISSUER, response.getIssuer());
+        assertEquals(AUTHORIZATION_ENDPOINT,
+                response.getDiscoveryProperty(Constants.AUTHORIZATION_ENDPOINT));
+        assertEquals(TOKEN_ENDPOINT, response.getDiscoveryProperty(Constants.TOKEN_ENDPOINT));
+        assertEquals(USERINFO_ENDPOINT, response.getDiscoveryProperty(Constants.USERINFO_ENDPOINT));
+        assertEquals(LOGOUT_ENDPOINT, response.getDiscoveryProperty(Constants.LOGOUT_ENDPOINT));
+        assertEquals(JWKS_URI, response.getDiscoveryProperty(Constants.JWKS_URI));
+    }
+
+    @Test
+    public void keepsTheUnknownProperties() throws JSONException {
+
+        OIDCDiscoveryResponse response = new OIDCDiscoveryResponse(mDocument);
+        assertEquals(REVOCATION_ENDPOINT, response.getDiscoveryProperty("revocation_endpoint"));
+        assertEquals("true", response.getDiscoveryProperty("request_parameter_supported"));
+        assertNull(response.getDiscoveryProperty("registration_endpoint"));
+        assertNull(response.getDiscoveryProperty("missing"));
+        JSONArray scopes = new JSONArray(response.getDiscoveryProperty("scopes_supported"));
+        assertEquals(2, scopes.length());
+        assertEquals("profile", scopes.getString(1));
+    }
+
+    @Test
+    public void doesNotReadTheDocumentAgain() throws JSONException {
+
+        OIDCDiscoveryResponse response = new OIDCDiscoveryResponse(mDocument);
+        mDocument.mReads = 0;
+        mDocument.put(Constants.TOKEN_ENDPOINT, "https://changed/token");
+        mDocument.put("revocation_endpoint", "https://changed/revoke");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(TOKEN_ENDPOINT, response.getDiscoveryProperty(Constants.TOKEN_ENDPOINT));
+            assertEquals(REVOCATION_ENDPOINT,
+                    response.getDiscoveryProperty("revocation_endpoint"));
+        }
+        assertEquals(0, mDocument.mReads);
+    }
+
+    @Test
+    public void roundTripsThroughJson() throws JSONException {
+
+        OIDCDiscoveryResponse response =
+                new OIDCDiscoveryResponse(new OIDCDiscoveryResponse(mDocument).toJson());
+        assertEquals(ISSUER, response.getIssuer());
+        assertEquals(REVOCATION_ENDPOINT, response.getDiscoveryProperty("revocation_endpoint"));
+        assertEquals(2, new JSONArray(response.getDiscoveryProperty("scopes_supported")).length());
+    }
+
+    @Test
+    public void roundTripsThroughTheCompactForm() throws IOException, JSONException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new OIDCDiscoveryResponse(mDocument).writeTo(new DataOutputStream(bytes));
+        OIDCDiscoveryResponse response = OIDCDiscoveryResponse.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(ISSUER, response.getIssuer());
+        assertEquals(JWKS_URI, response.getDiscoveryProperty(Constants.JWKS_URI));
+        assertEquals(REVOCATION_ENDPOINT, response.getDiscoveryProperty("revocation_endpoint"));
+        assertEquals(2, new JSONArray(response.getDiscoveryProperty("scopes_supported")).length());
+    }
+
+    /**
+     * JSONObject which counts the values read from it.
+     */
+    private static class CountingJSONObject extends JSONObject {
+
+        private int mReads;
+
+        @Override
+        public Object opt(String name) {
+
+            mReads++;
+            return super.opt(name);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.model;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that a {@link UserInfoResponse} serialized by this version and by earlier versions, which
+ * serialized the response as its JSON text, is read back.
+ */
+public class UserInfoResponseSerializationTest {
+
+    private static final long SERIAL_VERSION_UID = -6173570286358038816L;
+
+    private JSONObject mUserInfo;
+
+    @Before
+    public void setUp() throws JSONException {
+
+        mUserInfo = new JSONObject();
+        mUserInfo.put("sub", "admin");
+        mUserInfo.put("email_verified", true);
+        mUserInfo.put("groups", new JSONArray().put("admin").put("everyone"));
+        mUserInfo.put("address", new JSONObject().put("country", "Sri Lanka"));
+    }
+
+    @Test
+    public void keepsTheSerialVersionUid() {
+
+        assertEquals(SERIAL_VERSION_UID,
+                ObjectStreamClass.lookup(UserInfoResponse.class).getSerialVersionUID());
+    }
+
+    @Test
+    public void readsTheCompactForm() throws IOException, ClassNotFoundException {
+
+        byte[] bytes = serialize(new UserInfoResponse(mUserInfo));
+        assertClaims((UserInfoResponse) deserialize(bytes));
+    }
+
+    @Test
+    public void readsTheFormOfEarlierVersions() throws IOException, ClassNotFoundException {
+
+        byte[] bytes = serialize(new LegacyUserInfoResponse(mUserInfo.toString()));
+        bytes = replaceClassName(bytes, LegacyUserInfoResponse.class.getName(),
+                UserInfoResponse.class.getName());
+        assertClaims((UserInfoResponse) deserialize(bytes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertClaims(UserInfoResponse response) {
+
+        assertEquals("admin", response.getSubject());
+        Map<String, Object> claims = response.getClaims();
+        assertEquals(Boolean.TRUE, claims.get("email_verified"));
+        assertEquals(Arrays.asList("admin", "everyone"), claims.get("groups"));
+        assertEquals("Sri Lanka", ((Map<String, Object>) claims.get("address")).get("country"));
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    // Class names are written with a two byte length, and nothing else in the stream depends on
+    // the position of the bytes which follow.
+    private static byte[] replaceClassName(byte[] bytes, String from, String to) {
+
+        byte[] source = withLength(from);
+        byte[] target = withLength(to);
+        for (int i = 0; i <= bytes.length - source.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + source.length), source)) {
+                byte[] result = new byte[bytes.length - source.length + target.length];
+                System.arraycopy(bytes, 0, result, 0, i);
+                System.arraycopy(target, 0, result, i, target.length);
+                System.arraycopy(bytes, i + source.length, result, i + target.length,
+                        bytes.length - i - source.length);
+                return result;
+            }
+        }
+        throw new AssertionError("Class name not found in the stream");
+    }
+
+    private static byte[] withLength(String name) {
+
+        byte[] bytes = name.getBytes(Charset.forName("UTF-8"));
+        byte[] result = new byte[bytes.length + 2];
+        result[0] = (byte) (bytes.length >> 8);
+        result[1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, result, 2, bytes.length);
+        return result;
+    }
+
+    /**
+     * Serialized form of the UserInfoResponse of earlier versions.
+     */
+    private static class LegacyUserInfoResponse implements Serializable {
+
+        private static final long serialVersionUID = SERIAL_VERSION_UID;
+
+        private final String mUserInfoResponse;
+
+        LegacyUserInfoResponse(String userInfoResponse) {
+
+            this.mUserInfoResponse = userInfoResponse;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.android.oidc.sdk.util;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the {@link Util#asMap(JSONObject)} view of a large userinfo response converts only
+ * the values which are read.
+ */
+public class JSONObjectMapTest {
+
+    private static final int CLAIM_COUNT = 300;
+    private static final int GROUP_COUNT = 500;
+
+    private CountingJSONObject mUserInfo;
+    private JSONArray mGroups;
+
+    @Before
+    public void setUp() throws JSONException {
+
+        mUserInfo = new CountingJSONObject();
+        mGroups = new JSONArray();
+        for (int i = 0; i < GROUP_COUNT; i++) {
+            mGroups.put(new JSONObject().put("name", "group" + i).put("id", i));
+        }
+        mUserInfo.put("sub", "admin");
+        mUserInfo.put("email_verified", true);
+        mUserInfo.put("groups", mGroups);
+        mUserInfo.put("address", JSONObject.NULL);
+        for (int i = 0; i < CLAIM_COUNT; i++) {
+            mUserInfo.put("claim" + i, "value" + i);
+        }
+        mUserInfo.mReads = 0;
+    }
+
+    @Test
+    public void readsOnlyTheRequestedClaims() {
+
+        Map<String, Object> claims = Util.asMap(mUserInfo);
+        assertEquals("admin", claims.get("sub"));
+        assertEquals(Boolean.TRUE, claims.get("email_verified"));
+        assertEquals(2, mUserInfo.mReads);
+    }
+
+    @Test
+    public void sizeDoesNotReadTheClaims() {
+
+        Map<String, Object> claims = Util.asMap(mUserInfo);
+        assertEquals(CLAIM_COUNT + 4, claims.size());
+        assertTrue(claims.containsKey("groups"));
+        assertFalse(claims.containsKey("missing"));
+        assertEquals(0, mUserInfo.mReads);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void wrapsNestedArraysWithoutCopyingThem() throws JSONException {
+
+        List<Object> groups = (List<Object>) Util.asMap(mUserInfo).get("groups");
+        assertEquals(GROUP_COUNT, groups.size());
+        // The list is a view, so it sees an item added to the JSONArray after it was read.
+        mGroups.put(new JSONObject().put("name", "late"));
+        assertEquals(GROUP_COUNT + 1, groups.size());
+        Map<String, Object> lastGroup = (Map<String, Object>) groups.get(GROUP_COUNT);
+        assertEquals("late", lastGroup.get("name"));
+    }
+
+    @Test
+    public void readsJsonNullAsNull() {
+
+        Map<String, Object> claims = Util.asMap(mUserInfo);
+        assertTrue(claims.containsKey("address"));
+        assertNull(claims.get("address"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void isReadOnly() {
+
+        Util.asMap(mUserInfo).put("sub", "other");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void copyMatchesTheView() throws JSONException {
+
+        Map<String, Object> copy = Util.toMap(mUserInfo);
+        assertEquals(CLAIM_COUNT + 4, copy.size());
+        assertEquals(GROUP_COUNT, ((List<Object>) copy.get("groups")).size());
+        assertEquals(copy.get("claim42"), Util.asMap(mUserInfo).get("claim42"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void serializesAsACopy() throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Util.asMap(mUserInfo));
+        }
+        Map<String, Object> copy;
+        try (ObjectInputStream in =
+                     new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Map<String, Object>) in.readObject();
+        }
+        assertTrue(copy instanceof HashMap);
+        assertEquals(CLAIM_COUNT + 4, copy.size());
+        assertNull(copy.get("address"));
+        List<Object> groups = (List<Object>) copy.get("groups");
+        assertEquals("group7", ((Map<String, Object>) groups.get(7)).get("name"));
+    }
+
+    /**
+     * JSONObject which counts the values read from it.
+     */
+    private static class CountingJSONObject extends JSONObject {
+
+        private int mReads;
+
+        @Override
+        public Object opt(String name) {
+
+            mReads++;
+            return super.opt(name);
+        }
+    }
+}